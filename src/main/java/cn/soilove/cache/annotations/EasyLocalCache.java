@@ -12,7 +12,7 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface EasyLocalCache {
     /**
-     * 缓存命名空间
+     * 缓存命名空间，可通过local-cache.namespaces.<namespace>配置容量、过期时间等
      * @return
      */
     String namespace();
@@ -30,8 +30,38 @@ public @interface EasyLocalCache {
     String key();
 
     /**
-     * 超时时间 - 单位:秒
+     * 超时时间 - 单位:秒，命名空间配置了过期时间时以配置为准，开启variable-expiry时按缓存项生效
      * @return
      */
     long timeout() default 60;
+
+    /**
+     * 空值缓存-超时时间 - 单位:秒，默认-1使用命名空间配置的null-value-expire
+     * <pre>
+     *     仅命名空间开启variable-expiry时按缓存项生效
+     * </pre>
+     * @return
+     */
+    long timeout4none() default -1;
+
+    /**
+     * 是否批量缓存 - 默认false
+     * <pre>
+     *     方法的第一个集合参数为批量参数，每个元素对应一个缓存，key表达式中使用#item引用元素，如：key="'user:' + #item"
+     *     一次读取所有元素的缓存，仅使用未命中的元素调用方法(并发未命中的相同key只加载一次)，并按批量参数顺序合并返回
+     *     方法返回Map时按Map的key对应元素；返回集合时通过batchResultId获取返回元素对应的元素
+     * </pre>
+     * @return
+     */
+    boolean batch() default false;
+
+    /**
+     * 批量缓存 - 返回集合元素对应的批量参数元素 - spel表达式，#item为返回集合元素
+     * <pre>
+     * 示例：
+     *  batchResultId="#item.id"
+     * </pre>
+     * @return
+     */
+    String batchResultId() default "";
 }
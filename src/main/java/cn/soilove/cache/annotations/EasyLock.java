@@ -40,4 +40,24 @@ public @interface EasyLock {
      * @return
      */
     boolean spin() default false;
+
+    /**
+     * 是否自动续期 - 默认false
+     * <pre>
+     *     开启后timeout为租约时间，可设置较短(如10秒)：持有期间每过租约的1/3自动续期一次，直到方法执行完成；
+     *     进程退出后不再续期，锁在租约到期后释放
+     * </pre>
+     * @return
+     */
+    boolean watchdog() default false;
+
+    /**
+     * 是否可重入 - 默认false
+     * <pre>
+     *     开启后同一线程在持有锁期间再次进入同一个key的加锁方法(如递归、嵌套调用)直接执行，不访问redis；
+     *     最外层方法执行完成后释放锁
+     * </pre>
+     * @return
+     */
+    boolean reentrant() default false;
 }
@@ -0,0 +1,64 @@
+package cn.soilove.cache.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * 多级缓存注解：一级caffeine本地缓存，二级redis缓存
+ * <pre>
+ *     先读本地缓存，未命中时读取redis缓存，均未命中时执行方法并写入两级缓存；
+ *     redis.near-cache-enabled=true时，@EasyRedisCacheClean或RedisService.del删除redis缓存后通知所有节点移除本地缓存
+ * </pre>
+ **/
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EasyMultiLevelCache {
+
+    /**
+     * 本地缓存命名空间
+     * @return
+     */
+    String namespace();
+
+    /**
+     * 缓存key - spel表达式，同时作为本地缓存key和redis缓存key
+     * <pre>
+     * 示例：
+     *  key="#id"
+     *  key="#user.id"
+     *  key="'name:' + #user.name"
+     * </pre>
+     * @return
+     */
+    String key();
+
+    /**
+     * 缓存Class
+     * @return
+     */
+    Class<?> classz();
+
+    /**
+     * 是否为集合 - 默认false
+     * @return
+     */
+    boolean array() default false;
+
+    /**
+     * 本地缓存超时时间 - 单位:秒
+     * @return
+     */
+    long localTimeout() default 10;
+
+    /**
+     * redis缓存超时时间 - 单位:秒
+     * @return
+     */
+    int timeout() default 60;
+
+    /**
+     * redis空值缓存-超时时间 - 单位:秒
+     * @return
+     */
+    int timeout4none() default 5;
+}
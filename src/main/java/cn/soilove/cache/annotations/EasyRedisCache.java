@@ -47,4 +47,88 @@ public @interface EasyRedisCache {
      * @return
      */
     int timeout4none() default 5;
-}
+
+    /**
+     * 是否防击穿加载 - 默认false
+     * <pre>
+     *     缓存失效时仅一个调用方获取redis互斥锁并重建缓存，其他调用方退避等待后重新读取
+     * </pre>
+     * @return
+     */
+    boolean guard() default false;
+
+    /**
+     * 防击穿加载 - 最大等待时间，超时后直接加载 - 单位:毫秒
+     * @return
+     */
+    long guardWait() default 3000;
+
+    /**
+     * 提前重建系数(XFetch算法beta) - 默认0不开启
+     * <pre>
+     *     大于0时记录重建耗时和失效时间，读取时按概率在失效前提前重建，分散集中失效，推荐1.0
+     * </pre>
+     * @return
+     */
+    double beta() default 0;
+
+    /**
+     * 软超时时间 - 单位:秒，默认0不开启
+     * <pre>
+     *     大于0且小于timeout时开启：超过软超时后重新加载缓存，仅超过timeout(硬超时)失效后才阻塞所有调用方；
+     *     默认由读取到旧值的调用线程同步刷新，asyncRefresh=true时直接返回旧值并在后台线程池刷新
+     * </pre>
+     * @return
+     */
+    int softTimeout() default 0;
+
+    /**
+     * 软超时后是否后台刷新 - 默认false
+     * <pre>
+     *     开启后方法在后台线程池中执行(同一key仅一个刷新任务)，调用线程的事务、ThreadLocal、安全上下文
+     *     及可重入分布式锁均不可用，仅在方法不依赖调用线程上下文、可在任意线程执行时开启
+     * </pre>
+     * @return
+     */
+    boolean asyncRefresh() default false;
+
+    /**
+     * 序列化器 - 默认使用全局配置(redis.serializer)
+     * <pre>
+     *     fastjson、binary(紧凑二进制)或自定义CacheSerializer实现的类全名，字符串缓存不使用
+     * </pre>
+     * @return
+     */
+    String serializer() default "";
+
+    /**
+     * 压缩阈值 - 单位:字节，默认-1使用全局配置(redis.compressThreshold)，0不压缩
+     * <pre>
+     *     序列化后超过阈值时使用Deflate压缩，读取时自动识别，字符串缓存不使用
+     * </pre>
+     * @return
+     */
+    int compressThreshold() default -1;
+
+    /**
+     * 是否批量缓存 - 默认false
+     * <pre>
+     *     方法的第一个集合参数为批量参数，每个元素对应一个缓存，key表达式中使用#item引用元素，如：key="'user:' + #item"
+     *     一次读取所有元素的缓存，仅使用未命中的元素调用方法，结果批量写回，并按批量参数顺序合并返回
+     *     方法返回Map时按Map的key对应元素；返回集合时通过batchResultId获取返回元素对应的元素
+     *     批量缓存与单个缓存使用相同的序列化器、压缩阈值和格式，不支持guard、beta、softTimeout，同时配置时调用报错
+     * </pre>
+     * @return
+     */
+    boolean batch() default false;
+
+    /**
+     * 批量缓存 - 返回集合元素对应的批量参数元素 - spel表达式，#item为返回集合元素
+     * <pre>
+     * 示例：
+     *  batchResultId="#item.id"
+     * </pre>
+     * @return
+     */
+    String batchResultId() default "";
+}
\ No newline at end of file
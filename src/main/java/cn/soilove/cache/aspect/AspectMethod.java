@@ -0,0 +1,53 @@
+package cn.soilove.cache.aspect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * 切面方法元数据，每个方法仅解析一次
+ **/
+public class AspectMethod<A extends Annotation, T> {
+
+    /**
+     * 真实的调用方法
+     */
+    private final Method method;
+
+    /**
+     * 方法注解
+     */
+    private final A annotation;
+
+    /**
+     * 注解key表达式元数据，为空表示未配置key或表达式解析失败
+     */
+    private final SpELAspectHandler.SpelMetadata keyMetadata;
+
+    /**
+     * 切面根据注解构建的属性，如缓存参数，多次调用共享，不可修改
+     */
+    private final T attributes;
+
+    AspectMethod(Method method, A annotation, SpELAspectHandler.SpelMetadata keyMetadata, T attributes) {
+        this.method = method;
+        this.annotation = annotation;
+        this.keyMetadata = keyMetadata;
+        this.attributes = attributes;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public A getAnnotation() {
+        return annotation;
+    }
+
+    public T getAttributes() {
+        return attributes;
+    }
+
+    SpELAspectHandler.SpelMetadata getKeyMetadata() {
+        return keyMetadata;
+    }
+}
@@ -0,0 +1,131 @@
+package cn.soilove.cache.aspect;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 切面方法元数据注册表
+ * <pre>
+ *     按(目标类,签名方法)缓存真实方法、注解、key表达式和切面属性，
+ *     避免每次调用都执行AopProxyUtils.ultimateTargetClass、ClassUtils.getMostSpecificMethod和BridgeMethodResolver
+ * </pre>
+ **/
+public class AspectMethodRegistry<A extends Annotation, T> {
+
+    private final SpELAspectHandler handler;
+
+    private final Class<A> annotationType;
+
+    private final Function<A, String> keyExtractor;
+
+    private final BiFunction<Method, A, T> attributesBuilder;
+
+    /**
+     * 方法元数据缓存
+     * key=目标类
+     * value=签名方法 -> 方法元数据
+     */
+    private final Map<Class<?>, Map<Method, AspectMethod<A, T>>> methodMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param handler SpEL表达式工具
+     * @param annotationType 注解类型
+     * @param keyExtractor 获取注解的key表达式
+     * @param attributesBuilder 根据真实方法和注解构建切面属性
+     */
+    public AspectMethodRegistry(SpELAspectHandler handler, Class<A> annotationType, Function<A, String> keyExtractor, BiFunction<Method, A, T> attributesBuilder) {
+        this.handler = handler;
+        this.annotationType = annotationType;
+        this.keyExtractor = keyExtractor;
+        this.attributesBuilder = attributesBuilder;
+    }
+
+    public Class<A> getAnnotationType() {
+        return annotationType;
+    }
+
+    /**
+     * 获取切面方法元数据
+     * @param joinPoint
+     * @param annotation 切点绑定的注解
+     * @return
+     */
+    public AspectMethod<A, T> get(JoinPoint joinPoint, A annotation) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object target = joinPoint.getTarget();
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+
+        Map<Method, AspectMethod<A, T>> map = methodMap.get(targetClass);
+        if (map != null) {
+            AspectMethod<A, T> aspectMethod = map.get(method);
+            if (aspectMethod != null) {
+                return aspectMethod;
+            }
+        }
+        return register(targetClass, method, target, annotation);
+    }
+
+    /**
+     * 解析key表达式
+     * @param aspectMethod
+     * @param arguments
+     * @return
+     */
+    public String parseKey(AspectMethod<A, T> aspectMethod, Object[] arguments) {
+        SpELAspectHandler.SpelMetadata keyMetadata = aspectMethod.getKeyMetadata();
+        if (keyMetadata == null) {
+            return handler.parseSpel(aspectMethod.getMethod(), arguments, keyExtractor.apply(aspectMethod.getAnnotation()), String.class, null);
+        }
+        return handler.parseSpel(keyMetadata, arguments, String.class, null);
+    }
+
+    /**
+     * 预先注册目标类上带注解的方法
+     * @param targetClass
+     * @param method
+     */
+    public void register(Class<?> targetClass, Method method) {
+        Method specificMethod = BridgeMethodResolver.findBridgedMethod(ClassUtils.getMostSpecificMethod(method, targetClass));
+        A annotation = AnnotationUtils.findAnnotation(specificMethod, annotationType);
+        if (annotation != null) {
+            register(targetClass, method, null, annotation);
+        }
+    }
+
+    private AspectMethod<A, T> register(Class<?> targetClass, Method method, Object target, A annotation) {
+        return methodMap.computeIfAbsent(targetClass, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, k -> build(targetClass, method, target, annotation));
+    }
+
+    private AspectMethod<A, T> build(Class<?> targetClass, Method method, Object target, A annotation) {
+        // 获取真实的调用对象，防止注解加在接口或抽象方法上
+        Class<?> userClass = target != null ? AopProxyUtils.ultimateTargetClass(target) : targetClass;
+        Method specificMethod = ClassUtils.getMostSpecificMethod(method, userClass);
+        // 防止桥接方法
+        specificMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
+
+        // 预先解析key表达式，解析失败时调用时按原方式处理
+        SpELAspectHandler.SpelMetadata keyMetadata = null;
+        String key = keyExtractor.apply(annotation);
+        if (!StringUtils.isEmpty(key)) {
+            try {
+                keyMetadata = handler.getMetadata(specificMethod, key);
+            } catch (Exception e) {
+                keyMetadata = null;
+            }
+        }
+        return new AspectMethod<>(specificMethod, annotation, keyMetadata, attributesBuilder.apply(specificMethod, annotation));
+    }
+}
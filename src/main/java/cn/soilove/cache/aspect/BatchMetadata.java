@@ -0,0 +1,51 @@
+package cn.soilove.cache.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量缓存元数据：方法的集合参数、元素缓存key表达式和结果类型
+ **/
+final class BatchMetadata {
+
+    /**
+     * 批量缓存元素变量名
+     */
+    static final String ITEM_VARIABLE = "item";
+
+    final Method method;
+    final int paramIndex;
+    final SpELAspectHandler.SpelMetadata key;
+    final SpELAspectHandler.SpelMetadata resultId;
+    final boolean mapResult;
+    final boolean setResult;
+
+    BatchMetadata(Method method, int paramIndex, SpELAspectHandler.SpelMetadata key, SpELAspectHandler.SpelMetadata resultId, boolean mapResult, boolean setResult) {
+        this.method = method;
+        this.paramIndex = paramIndex;
+        this.key = key;
+        this.resultId = resultId;
+        this.mapResult = mapResult;
+        this.setResult = setResult;
+    }
+
+    /**
+     * 按原参数类型构建集合
+     * @param param
+     * @param items
+     * @return
+     */
+    static Collection<Object> newCollection(Object param, List<Object> items) {
+        return param instanceof Set ? new LinkedHashSet<>(items) : items;
+    }
+
+    static Object[] appendArg(Object[] args, Object item) {
+        Object[] itemArgs = Arrays.copyOf(args, args.length + 1);
+        itemArgs[args.length] = item;
+        return itemArgs;
+    }
+}
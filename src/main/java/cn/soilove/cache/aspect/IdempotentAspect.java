@@ -10,7 +10,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * redis幂等控制切面
@@ -27,6 +28,17 @@ public class IdempotentAspect extends SpELAspectHandler {
     @Autowired
     private RedisService redisService;
 
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyIdempotent, Void> registry =
+            new AspectMethodRegistry<>(this, EasyIdempotent.class, EasyIdempotent::key, (m, a) -> null);
+
+    @Override
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Arrays.asList(registry);
+    }
+
     /**
      * 幂等控制
      * @param joinPoint
@@ -36,11 +48,8 @@ public class IdempotentAspect extends SpELAspectHandler {
     @Around("@annotation(cn.soilove.cache.annotations.EasyIdempotent) && @annotation(annotation)")
     public Object easyLocalCache(ProceedingJoinPoint joinPoint, EasyIdempotent annotation){
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
-
         // 获取表达式内容
-        String key = parseSpel(method, args,annotation.key(),String.class,null);
+        String key = registry.parseKey(registry.get(joinPoint, annotation), joinPoint.getArgs());
 
         // 幂等控制
         return redisService.easyIdempotent(key,annotation.timeout(), () -> {
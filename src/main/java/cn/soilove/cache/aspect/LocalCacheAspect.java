@@ -11,7 +11,11 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 本地缓存切面
@@ -25,6 +29,30 @@ import java.lang.reflect.Method;
 @Component
 public class LocalCacheAspect extends SpELAspectHandler {
 
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyLocalCache, Void> cacheRegistry =
+            new AspectMethodRegistry<>(this, EasyLocalCache.class, EasyLocalCache::key, (m, a) -> null);
+
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyLocalCacheClean, Void> cleanRegistry =
+            new AspectMethodRegistry<>(this, EasyLocalCacheClean.class, EasyLocalCacheClean::key, (m, a) -> null);
+
+    /**
+     * 批量缓存元数据
+     */
+    private final AspectMethodRegistry<EasyLocalCache, BatchMetadata> batchRegistry =
+            new AspectMethodRegistry<>(this, EasyLocalCache.class, a -> "",
+                    (m, a) -> a.batch() ? buildBatchMetadata(m, a.key(), a.batchResultId()) : null);
+
+    @Override
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Arrays.asList(cacheRegistry, cleanRegistry, batchRegistry);
+    }
+
     /**
      * 获取并设置缓存
      * @param joinPoint
@@ -34,14 +62,18 @@ public class LocalCacheAspect extends SpELAspectHandler {
     @Around("@annotation(cn.soilove.cache.annotations.EasyLocalCache) && @annotation(annotation)")
     public Object easyCache(ProceedingJoinPoint joinPoint, EasyLocalCache annotation) {
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
+        // 批量缓存
+        if(annotation.batch()){
+            return batchCache(joinPoint, annotation);
+        }
+
+        AspectMethod<EasyLocalCache, Void> aspectMethod = cacheRegistry.get(joinPoint, annotation);
 
         // 获取表达式内容
-        String key = parseSpel(method, args,annotation.key(),String.class,null);
+        String key = cacheRegistry.parseKey(aspectMethod, joinPoint.getArgs());
 
         // 从缓存获取
-        return CaffeineCacheUtils.get(annotation.namespace(),key,annotation.timeout(),() -> {
+        return CaffeineCacheUtils.get(annotation.namespace(),key,annotation.timeout(),annotation.timeout4none(),() -> {
             try {
                 return joinPoint.proceed();
             } catch (Throwable throwable) {
@@ -50,6 +82,50 @@ public class LocalCacheAspect extends SpELAspectHandler {
         });
     }
 
+    /**
+     * 批量缓存：一次读取所有元素的缓存，仅使用未命中的元素调用方法
+     * @param joinPoint
+     * @param annotation
+     * @return
+     */
+    private Object batchCache(ProceedingJoinPoint joinPoint, EasyLocalCache annotation) {
+        BatchMetadata metadata = batchRegistry.get(joinPoint, annotation).getAttributes();
+        Object[] args = joinPoint.getArgs();
+        Object param = metadata == null ? null : args[metadata.paramIndex];
+        if(!(param instanceof Collection) || ((Collection<?>) param).isEmpty()){
+            return proceed(joinPoint, args);
+        }
+
+        // 每个元素对应一个缓存key，去重并保持顺序
+        Map<String, Object> keyItems = parseBatchKeys(metadata, args, (Collection<?>) param);
+        if(keyItems == null){
+            return proceed(joinPoint, args);
+        }
+
+        // 一次读取所有缓存，仅使用未命中的元素调用方法
+        Map<String, Object> values = CaffeineCacheUtils.getAll(annotation.namespace(), keyItems.keySet(),
+                annotation.timeout(), annotation.timeout4none(), missKeys -> {
+                    List<Object> missItems = new ArrayList<>(missKeys.size());
+                    for(String key : missKeys){
+                        missItems.add(keyItems.get(key));
+                    }
+                    Object[] missArgs = args.clone();
+                    missArgs[metadata.paramIndex] = BatchMetadata.newCollection(param, missItems);
+                    return mapBatchResult(metadata, args, proceed(joinPoint, missArgs));
+                });
+
+        // 按批量参数顺序合并结果
+        return mergeBatchResult(metadata, keyItems, values);
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, Object[] args) {
+        try {
+            return joinPoint.proceed(args);
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
     /**
      * 清空缓存
      * @param joinPoint
@@ -60,9 +136,6 @@ public class LocalCacheAspect extends SpELAspectHandler {
     @Around("@annotation(cn.soilove.cache.annotations.EasyLocalCacheClean) && @annotation(annotation)")
     public Object easyCacheClean(ProceedingJoinPoint joinPoint, EasyLocalCacheClean annotation) throws Throwable {
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
-
         // 清空缓存空间
         if (StringUtils.isEmpty(annotation.key())){
             // 业务代码执行
@@ -76,7 +149,7 @@ public class LocalCacheAspect extends SpELAspectHandler {
         // 清空缓存空间的指定缓存key
         else {
             // 获取表达式内容
-            String key = parseSpel(method, args,annotation.key(),String.class,null);
+            String key = cleanRegistry.parseKey(cleanRegistry.get(joinPoint, annotation), joinPoint.getArgs());
 
             // 业务代码执行
             Object obj = joinPoint.proceed();
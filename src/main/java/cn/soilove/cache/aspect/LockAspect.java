@@ -1,6 +1,7 @@
 package cn.soilove.cache.aspect;
 
 import cn.soilove.cache.annotations.EasyLock;
+import cn.soilove.cache.model.EasyLockOptions;
 import cn.soilove.cache.service.RedisService;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -10,7 +11,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * redis锁切面
@@ -27,35 +29,36 @@ public class LockAspect extends SpELAspectHandler {
     @Autowired
     private RedisService redisService;
 
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyLock, EasyLockOptions> registry =
+            new AspectMethodRegistry<>(this, EasyLock.class, EasyLock::key, (m, a) -> EasyLockOptions.of(a.timeout())
+                    .spin(a.spin() ? a.applytimeout() : 0)
+                    .watchdog(a.watchdog())
+                    .reentrant(a.reentrant()));
+
+    @Override
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Arrays.asList(registry);
+    }
+
     @Around("@annotation(cn.soilove.cache.annotations.EasyLock) && @annotation(annotation)")
     public Object easyLock(ProceedingJoinPoint joinPoint, EasyLock annotation){
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
+        AspectMethod<EasyLock, EasyLockOptions> aspectMethod = registry.get(joinPoint, annotation);
 
         // 获取表达式内容
-        String key = parseSpel(method, args,annotation.key(),String.class,null);
-
-        // 自旋
-        if(annotation.spin()){
-            return redisService.easySpinLock(key, annotation.timeout(), annotation.applytimeout(), () -> {
-                try {
-                    return joinPoint.proceed();
-                } catch (Throwable throwable) {
-                    throw new RuntimeException(throwable);
-                }
-            });
-        }
-        // 非自旋
-        else{
-            return redisService.easyLock(key,annotation.timeout(), () -> {
-                try {
-                    return joinPoint.proceed();
-                } catch (Throwable throwable) {
-                    throw new RuntimeException(throwable);
-                }
-            });
-        }
+        String key = registry.parseKey(aspectMethod, joinPoint.getArgs());
+
+        // 参数中的申请锁等待时间大于0时自旋
+        return redisService.easyLock(key, aspectMethod.getAttributes(), () -> {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        });
     }
 
 }
@@ -0,0 +1,91 @@
+package cn.soilove.cache.aspect;
+
+import cn.soilove.cache.annotations.EasyMultiLevelCache;
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.service.handler.MultiLevelCacheHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 多级缓存切面
+ **/
+@Order(-2)
+@Slf4j
+@Aspect
+@Component
+public class MultiLevelCacheAspect extends SpELAspectHandler {
+
+    @Autowired
+    private MultiLevelCacheHandler multiLevelCacheHandler;
+
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyMultiLevelCache, EasyCacheOptions> cacheRegistry =
+            new AspectMethodRegistry<>(this, EasyMultiLevelCache.class, EasyMultiLevelCache::key,
+                    (m, a) -> EasyCacheOptions.of(a.timeout(), a.timeout4none()));
+
+    @Override
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Collections.singletonList(cacheRegistry);
+    }
+
+    /**
+     * 获取并设置缓存
+     * @param joinPoint
+     * @param annotation
+     * @return
+     */
+    @Around("@annotation(cn.soilove.cache.annotations.EasyMultiLevelCache) && @annotation(annotation)")
+    public Object easyCache(ProceedingJoinPoint joinPoint, EasyMultiLevelCache annotation) {
+
+        AspectMethod<EasyMultiLevelCache, EasyCacheOptions> aspectMethod = cacheRegistry.get(joinPoint, annotation);
+
+        // 获取表达式内容
+        String key = cacheRegistry.parseKey(aspectMethod, joinPoint.getArgs());
+
+        // 缓存参数
+        EasyCacheOptions options = aspectMethod.getAttributes();
+
+        Supplier<Object> supplier = () -> {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable throwable) {
+                throw new RuntimeException(throwable);
+            }
+        };
+
+        // 集合缓存
+        if(annotation.array()){
+            return multiLevelCacheHandler.getArray(annotation.namespace(),key,annotation.localTimeout(),options,annotation.classz(),typed(supplier));
+        }
+        // 字符串缓存
+        else if(annotation.classz().equals(String.class)){
+            return multiLevelCacheHandler.get(annotation.namespace(),key,annotation.localTimeout(),options,() -> (String) supplier.get());
+        }
+        // 对象缓存
+        else{
+            return multiLevelCacheHandler.get(annotation.namespace(),key,annotation.localTimeout(),options,annotation.classz(),typed(supplier));
+        }
+    }
+
+    /**
+     * 方法返回值的类型由注解classz声明，编译期无法校验，按声明类型传递
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Supplier<R> typed(Supplier<Object> supplier){
+        return (Supplier<R>) (Supplier<?>) supplier;
+    }
+}
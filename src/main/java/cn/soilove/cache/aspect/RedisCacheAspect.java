@@ -2,7 +2,10 @@ package cn.soilove.cache.aspect;
 
 import cn.soilove.cache.annotations.EasyRedisCache;
 import cn.soilove.cache.annotations.EasyRedisCacheClean;
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.EasyCacheOptions;
 import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.service.support.EasyCacheLoader;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -10,8 +13,15 @@ import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * redis缓存切面
@@ -28,6 +38,30 @@ public class RedisCacheAspect extends SpELAspectHandler {
     @Autowired
     private RedisService redisService;
 
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyRedisCache, EasyCacheOptions> cacheRegistry =
+            new AspectMethodRegistry<>(this, EasyRedisCache.class, EasyRedisCache::key, (m, a) -> buildOptions(a));
+
+    /**
+     * 方法元数据
+     */
+    private final AspectMethodRegistry<EasyRedisCacheClean, Void> cleanRegistry =
+            new AspectMethodRegistry<>(this, EasyRedisCacheClean.class, EasyRedisCacheClean::key, (m, a) -> null);
+
+    /**
+     * 批量缓存方法元数据
+     */
+    private final AspectMethodRegistry<EasyRedisCache, BatchMetadata> batchRegistry =
+            new AspectMethodRegistry<>(this, EasyRedisCache.class, a -> "",
+                    (m, a) -> a.batch() ? buildBatchMetadata(checkBatchOptions(m, a), a.key(), a.batchResultId()) : null);
+
+    @Override
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Arrays.asList(cacheRegistry, cleanRegistry, batchRegistry);
+    }
+
     /**
      * 获取并设置缓存
      * @param joinPoint
@@ -37,15 +71,22 @@ public class RedisCacheAspect extends SpELAspectHandler {
     @Around("@annotation(cn.soilove.cache.annotations.EasyRedisCache) && @annotation(annotation)")
     public Object easyCache(ProceedingJoinPoint joinPoint, EasyRedisCache annotation) {
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
+        // 批量缓存
+        if(annotation.batch()){
+            return batchCache(joinPoint, annotation);
+        }
+
+        AspectMethod<EasyRedisCache, EasyCacheOptions> aspectMethod = cacheRegistry.get(joinPoint, annotation);
 
         // 获取表达式内容
-        String key = parseSpel(method, args,annotation.key(),String.class,null);
+        String key = cacheRegistry.parseKey(aspectMethod, joinPoint.getArgs());
+
+        // 缓存参数
+        EasyCacheOptions options = aspectMethod.getAttributes();
 
         // 集合缓存
         if(annotation.array()){
-            return redisService.easyCache4Array(key,annotation.timeout(),annotation.timeout4none(),annotation.classz(),() -> {
+            return redisService.easyCache4Array(key,options,annotation.classz(),() -> {
                 try {
                     return joinPoint.proceed();
                 } catch (Throwable throwable) {
@@ -55,7 +96,7 @@ public class RedisCacheAspect extends SpELAspectHandler {
         }
         // 字符串缓存
         else if(annotation.classz().equals(String.class)){
-            return redisService.easyCache(key,annotation.timeout(),annotation.timeout4none(),() -> {
+            return redisService.easyCache(key,options,() -> {
                 try {
                     return (String) joinPoint.proceed();
                 } catch (Throwable throwable) {
@@ -65,7 +106,7 @@ public class RedisCacheAspect extends SpELAspectHandler {
         }
         // 对象缓存
         else{
-            return redisService.easyCache(key,annotation.timeout(),annotation.timeout4none(),annotation.classz(),() -> {
+            return redisService.easyCache(key,options,annotation.classz(),() -> {
                 try {
                     return joinPoint.proceed();
                 } catch (Throwable throwable) {
@@ -85,11 +126,8 @@ public class RedisCacheAspect extends SpELAspectHandler {
     @Around("@annotation(cn.soilove.cache.annotations.EasyRedisCacheClean) && @annotation(annotation)")
     public Object easyCacheClean(ProceedingJoinPoint joinPoint, EasyRedisCacheClean annotation) throws Throwable {
 
-        Method method = filterMethod(joinPoint);
-        Object[] args = joinPoint.getArgs();
-
         // 获取表达式内容
-        String key = parseSpel(method, args,annotation.key(),String.class,null);
+        String key = cleanRegistry.parseKey(cleanRegistry.get(joinPoint, annotation), joinPoint.getArgs());
 
         // 业务代码执行
         Object obj = joinPoint.proceed();
@@ -99,4 +137,114 @@ public class RedisCacheAspect extends SpELAspectHandler {
 
         return obj;
     }
-}
\ No newline at end of file
+
+    /**
+     * 根据注解构建缓存参数，同一方法共享
+     * @param annotation
+     * @return
+     */
+    private static EasyCacheOptions buildOptions(EasyRedisCache annotation) {
+        EasyCacheOptions options = EasyCacheOptions.of(annotation.timeout(),annotation.timeout4none());
+        if(annotation.guard()){
+            options.guard(annotation.guardWait());
+        }
+        if(annotation.beta() > 0){
+            options.earlyRefresh(annotation.beta());
+        }
+        if(annotation.softTimeout() > 0 && annotation.asyncRefresh()){
+            options.asyncRefresh(annotation.softTimeout());
+        } else if(annotation.softTimeout() > 0){
+            options.staleWhileRevalidate(annotation.softTimeout());
+        }
+        if(!StringUtils.isEmpty(annotation.serializer())){
+            options.serializer(annotation.serializer());
+        }
+        if(annotation.compressThreshold() >= 0){
+            options.compress(annotation.compressThreshold());
+        }
+        return options;
+    }
+
+    /**
+     * 批量缓存不支持防击穿加载、提前重建和软超时，配置时拒绝
+     * @param method
+     * @param annotation
+     * @return
+     */
+    private static Method checkBatchOptions(Method method, EasyRedisCache annotation) {
+        if(annotation.guard() || annotation.beta() > 0 || annotation.softTimeout() > 0){
+            log.error("[starter][cache][easyCache]批量缓存不支持guard、beta、softTimeout!method:" + method);
+            throw new CacheStarterException("[错误]批量缓存不支持guard、beta、softTimeout，method=" + method);
+        }
+        return method;
+    }
+
+    /**
+     * 批量缓存：一次读取所有元素的缓存，仅使用未命中的元素调用方法，结果批量写回
+     * @param joinPoint
+     * @param annotation
+     * @return
+     */
+    private Object batchCache(ProceedingJoinPoint joinPoint, EasyRedisCache annotation) {
+        BatchMetadata metadata = batchRegistry.get(joinPoint, annotation).getAttributes();
+        Object[] args = joinPoint.getArgs();
+        Object param = metadata == null ? null : args[metadata.paramIndex];
+        if(!(param instanceof Collection) || ((Collection<?>) param).isEmpty()){
+            return proceed(joinPoint, args);
+        }
+
+        // 每个元素对应一个缓存key，去重并保持顺序
+        Map<String, Object> keyItems = parseBatchKeys(metadata, args, (Collection<?>) param);
+        if(keyItems == null){
+            return proceed(joinPoint, args);
+        }
+
+        // 一次读取所有缓存，与单个缓存使用相同的序列化器和格式，无法读取的缓存视为未命中
+        EasyCacheOptions options = cacheRegistry.get(joinPoint, annotation).getAttributes();
+        List<String> keys = new ArrayList<>(keyItems.keySet());
+        Map<String, Object> cached = EasyCacheLoader.readAll(redisService, keys, options, annotation.classz());
+        Map<String, Object> values = new LinkedHashMap<>(keys.size() * 4 / 3 + 1);
+        List<String> missKeys = new ArrayList<>();
+        List<Object> missItems = new ArrayList<>();
+        for(String key : keys){
+            if(!cached.containsKey(key)){
+                missKeys.add(key);
+                missItems.add(keyItems.get(key));
+            } else if(cached.get(key) != null){
+                values.put(key, cached.get(key));
+            }
+        }
+
+        // 仅使用未命中的元素调用方法，并批量写回
+        if(!missItems.isEmpty()){
+            Object[] missArgs = args.clone();
+            missArgs[metadata.paramIndex] = BatchMetadata.newCollection(param, missItems);
+            Map<String, Object> loaded = mapBatchResult(metadata, args, proceed(joinPoint, missArgs));
+
+            Map<String, Object> writes = new LinkedHashMap<>(missKeys.size() * 4 / 3 + 1);
+            for(String key : missKeys){
+                Object value = loaded.get(key);
+                writes.put(key, value);
+                if(value != null){
+                    values.put(key, value);
+                }
+            }
+            try {
+                EasyCacheLoader.writeAll(redisService, writes, options, annotation.classz());
+            } catch (RuntimeException e) {
+                log.error("[starter][cache][easyCache]批量缓存写入异常!method:" + metadata.method, e);
+            }
+        }
+
+        // 按批量参数顺序合并结果
+        return mergeBatchResult(metadata, keyItems, values);
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, Object[] args) {
+        try {
+            return joinPoint.proceed(args);
+        } catch (Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+}
@@ -1,19 +1,53 @@
 package cn.soilove.cache.aspect;
 
+import cn.soilove.cache.properties.RedisProperties;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * SpEL表达式工具
@@ -21,18 +55,105 @@ import java.lang.reflect.Method;
  * @author: Chen GuoLin
  * @create: 2020-10-27 23:21
  **/
+@Slf4j
 @Component
-public class SpELAspectHandler {
+public class SpELAspectHandler implements ApplicationContextAware, SmartInitializingSingleton {
+
+    /**
+     * 共享的属性访问器，缓存反射读取方法，避免每次调用重新创建
+     */
+    private static final List<PropertyAccessor> PROPERTY_ACCESSORS = Collections.singletonList(new ReflectivePropertyAccessor());
+
+    /**
+     * 共享的表达式执行环境，与方法无关，创建后不再修改；每次调用仅绑定参数，见ArgumentsEvaluationContext
+     */
+    private static final EvaluationContext SHARED_CONTEXT = buildSharedContext();
+
     /**
      * SpEL表达式解析器
      */
-    protected ExpressionParser parser = new SpelExpressionParser();
+    protected ExpressionParser parser = buildParser(SpelCompilerMode.MIXED);
 
     /**
      * 参数匹配器
      */
     protected LocalVariableTableParameterNameDiscoverer discoverer = new LocalVariableTableParameterNameDiscoverer();
 
+    /**
+     * 表达式元数据缓存
+     * key=方法
+     * value=表达式 -> 解析后的表达式、参数名和简单表达式key生成器
+     */
+    private final Map<Method, Map<String, SpelMetadata>> metadataMap = new ConcurrentHashMap<>();
+
+    private ApplicationContext applicationContext;
+
+    private boolean eagerAspectMetadata;
+
+    /**
+     * 按配置设置SpEL编译模式
+     * @param redisProperties
+     */
+    @Autowired(required = false)
+    public void setRedisProperties(RedisProperties redisProperties) {
+        this.eagerAspectMetadata = redisProperties.isEagerAspectMetadata();
+        String mode = redisProperties.getSpelCompilerMode();
+        if (!StringUtils.isEmpty(mode)) {
+            this.parser = buildParser(SpelCompilerMode.valueOf(mode.trim().toUpperCase()));
+            this.metadataMap.clear();
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 开启预加载时，容器初始化完成后注册所有单例bean上带注解的方法
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<AspectMethodRegistry<?, ?>> registries = getRegistries();
+        if (!eagerAspectMetadata || registries.isEmpty() || !(applicationContext instanceof ConfigurableApplicationContext)) {
+            return;
+        }
+        ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+        for (String beanName : beanFactory.getSingletonNames()) {
+            Object bean = beanFactory.getSingleton(beanName);
+            if (bean == null || bean == this) {
+                continue;
+            }
+            // 切面中的目标对象为代理的目标对象
+            Class<?> targetClass = AopProxyUtils.ultimateTargetClass(bean);
+            if (targetClass == null || Proxy.isProxyClass(targetClass)) {
+                continue;
+            }
+            Set<Method> methods = new LinkedHashSet<>();
+            ReflectionUtils.doWithMethods(targetClass, methods::add, ReflectionUtils.USER_DECLARED_METHODS);
+            for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+                Collections.addAll(methods, ifc.getMethods());
+            }
+            for (Method method : methods) {
+                for (AspectMethodRegistry<?, ?> registry : registries) {
+                    try {
+                        registry.register(targetClass, method);
+                    } catch (RuntimeException e) {
+                        // 预加载失败不影响启动，调用时再解析
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 切面使用的方法元数据注册表，用于预加载
+     * @return
+     */
+    protected List<AspectMethodRegistry<?, ?>> getRegistries() {
+        return Collections.emptyList();
+    }
+
     /**
      * 解析 spel 表达式
      *
@@ -44,19 +165,183 @@ public class SpELAspectHandler {
      * @return 执行spel表达式后的结果
      */
     protected  <T> T parseSpel(Method method, Object[] arguments, String spel, Class<T> clazz, T defaultResult) {
-        String[] params = discoverer.getParameterNames(method);
-        EvaluationContext context = new StandardEvaluationContext();
-        for (int len = 0; len < params.length; len++) {
-            context.setVariable(params[len], arguments[len]);
+        SpelMetadata metadata;
+        try {
+            metadata = getMetadata(method, spel);
+        } catch (Exception e) {
+            return defaultResult;
         }
+        return parseSpel(metadata, arguments, clazz, defaultResult);
+    }
+
+    /**
+     * 执行已解析的 spel 表达式
+     *
+     * @param metadata  表达式元数据
+     * @param arguments 参数
+     * @param clazz     返回结果的类型
+     * @param defaultResult 默认结果
+     * @return 执行spel表达式后的结果
+     */
+    protected <T> T parseSpel(SpelMetadata metadata, Object[] arguments, Class<T> clazz, T defaultResult) {
         try {
-            Expression expression = parser.parseExpression(spel);
-            return expression.getValue(context, clazz);
+            // 简单表达式直接生成key
+            if (clazz == String.class && metadata.keyGenerator != null) {
+                return clazz.cast(metadata.keyGenerator.generate(arguments, (String) defaultResult));
+            }
+            return metadata.expression.getValue(new ArgumentsEvaluationContext(metadata.paramNames, arguments), clazz);
         } catch (Exception e) {
             return defaultResult;
         }
     }
 
+    /**
+     * 获取表达式元数据，每个方法+表达式仅解析一次
+     * @param method
+     * @param spel
+     * @return
+     */
+    protected SpelMetadata getMetadata(Method method, String spel) {
+        Map<String, SpelMetadata> spelMap = metadataMap.get(method);
+        if (spelMap == null) {
+            spelMap = metadataMap.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
+        }
+        SpelMetadata metadata = spelMap.get(spel);
+        if (metadata == null) {
+            // 解析失败时抛出异常，不缓存
+            String[] params = parameterNames(method);
+            metadata = new SpelMetadata(parser.parseExpression(spel), params, SpELKeyGenerator.compile(method, spel, params));
+            SpelMetadata exists = spelMap.putIfAbsent(spel, metadata);
+            if (exists != null) {
+                metadata = exists;
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * 构建表达式元数据，方法参数之外追加额外变量，执行时参数数组按相同顺序追加变量值，不缓存
+     * @param method
+     * @param spel
+     * @param variables 额外变量名
+     * @return
+     */
+    protected SpelMetadata buildMetadata(Method method, String spel, String... variables) {
+        String[] methodParams = parameterNames(method);
+        String[] params = Arrays.copyOf(methodParams, methodParams.length + variables.length);
+        System.arraycopy(variables, 0, params, methodParams.length, variables.length);
+        return new SpelMetadata(parser.parseExpression(spel), params, SpELKeyGenerator.compile(method, spel, params));
+    }
+
+    /**
+     * 构建批量缓存元数据，方法无集合参数时返回null
+     * @param method
+     * @param key 元素缓存key表达式，#item为集合元素
+     * @param batchResultId 方法返回集合时，从结果元素获取集合元素的表达式，#item为结果元素
+     * @return
+     */
+    protected BatchMetadata buildBatchMetadata(Method method, String key, String batchResultId) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+                SpelMetadata resultId = StringUtils.isEmpty(batchResultId) ? null : buildMetadata(method, batchResultId, BatchMetadata.ITEM_VARIABLE);
+                return new BatchMetadata(method, i, buildMetadata(method, key, BatchMetadata.ITEM_VARIABLE), resultId,
+                        Map.class.isAssignableFrom(method.getReturnType()), Set.class.isAssignableFrom(method.getReturnType()));
+            }
+        }
+        log.warn("[starter][cache]批量缓存方法无集合参数，不使用缓存!method:" + method);
+        return null;
+    }
+
+    /**
+     * 解析集合参数每个元素的缓存key，去重并保持顺序，存在key为空的元素时返回null
+     * @param metadata
+     * @param args
+     * @param param 集合参数
+     * @return 缓存key -> 集合元素
+     */
+    protected Map<String, Object> parseBatchKeys(BatchMetadata metadata, Object[] args, Collection<?> param) {
+        Map<String, Object> keyItems = new LinkedHashMap<>();
+        for (Object item : param) {
+            String key = parseItemSpel(metadata.key, args, item);
+            if (key == null) {
+                log.warn("[starter][cache]批量缓存key解析为空，直接调用方法!method:" + metadata.method);
+                return null;
+            }
+            keyItems.putIfAbsent(key, item);
+        }
+        return keyItems;
+    }
+
+    /**
+     * 方法结果转换为 缓存key -> 值
+     * @param metadata
+     * @param args
+     * @param loaded 方法结果：Map的key为集合元素，集合时按batchResultId获取集合元素
+     * @return
+     */
+    protected Map<String, Object> mapBatchResult(BatchMetadata metadata, Object[] args, Object loaded) {
+        Map<String, Object> result = new HashMap<>();
+        if (loaded instanceof Map) {
+            ((Map<?, ?>) loaded).forEach((item, value) -> {
+                if (value != null) {
+                    result.put(parseItemSpel(metadata.key, args, item), value);
+                }
+            });
+        } else if (loaded instanceof Collection) {
+            if (metadata.resultId == null) {
+                log.warn("[starter][cache]批量缓存返回集合时需配置batchResultId!method:" + metadata.method);
+                return result;
+            }
+            for (Object value : (Collection<?>) loaded) {
+                if (value != null) {
+                    Object item = parseSpel(metadata.resultId, BatchMetadata.appendArg(args, value), Object.class, null);
+                    result.put(parseItemSpel(metadata.key, args, item), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按批量参数顺序合并结果，返回类型与方法一致
+     * @param metadata
+     * @param keyItems 缓存key -> 集合元素
+     * @param values 缓存key -> 值
+     * @return
+     */
+    protected Object mergeBatchResult(BatchMetadata metadata, Map<String, Object> keyItems, Map<String, ?> values) {
+        if (metadata.mapResult) {
+            Map<Object, Object> result = new LinkedHashMap<>();
+            keyItems.forEach((key, item) -> {
+                Object value = values.get(key);
+                if (value != null) {
+                    result.put(item, value);
+                }
+            });
+            return result;
+        }
+        Collection<Object> result = metadata.setResult ? new LinkedHashSet<>() : new ArrayList<>(keyItems.size());
+        for (String key : keyItems.keySet()) {
+            Object value = values.get(key);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 执行#item表达式
+     * @param metadata
+     * @param args
+     * @param item
+     * @return
+     */
+    protected String parseItemSpel(SpelMetadata metadata, Object[] args, Object item) {
+        return parseSpel(metadata, BatchMetadata.appendArg(args, item), String.class, null);
+    }
+
     /**
      * 筛选方法
      * @param joinPoint
@@ -74,6 +359,139 @@ public class SpELAspectHandler {
         // 防止桥接方法
         return BridgeMethodResolver.findBridgedMethod(specificMethod);
     }
+
+    /**
+     * 获取方法参数名
+     * @param method
+     * @return
+     */
+    private String[] parameterNames(Method method) {
+        String[] params = discoverer.getParameterNames(method);
+        return params != null ? params : new String[0];
+    }
+
+    /**
+     * 构建SpEL表达式解析器
+     * @param mode 编译模式：OFF-解释执行，IMMEDIATE-立即编译，MIXED-多次执行后编译，失败时回退解释执行
+     * @return
+     */
+    private static ExpressionParser buildParser(SpelCompilerMode mode) {
+        return new SpelExpressionParser(new SpelParserConfiguration(mode, SpELAspectHandler.class.getClassLoader()));
+    }
+
+    /**
+     * 构建共享的表达式执行环境，提前初始化延迟创建的解析器，之后多线程只读
+     * @return
+     */
+    private static EvaluationContext buildSharedContext() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setPropertyAccessors(PROPERTY_ACCESSORS);
+        context.getConstructorResolvers();
+        context.getMethodResolvers();
+        context.getTypeLocator();
+        context.getTypeConverter();
+        return context;
+    }
+
+    /**
+     * 单次调用的表达式执行环境，按参数名读取参数数组，其余委托共享环境
+     */
+    private static final class ArgumentsEvaluationContext implements EvaluationContext {
+        private final String[] paramNames;
+        private final Object[] arguments;
+
+        /**
+         * 表达式中赋值的变量，极少使用，按需创建
+         */
+        private Map<String, Object> variables;
+
+        private ArgumentsEvaluationContext(String[] paramNames, Object[] arguments) {
+            this.paramNames = paramNames;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Object lookupVariable(String name) {
+            if (variables != null && variables.containsKey(name)) {
+                return variables.get(name);
+            }
+            // 同名时后追加的变量优先
+            for (int i = Math.min(paramNames.length, arguments.length) - 1; i >= 0; i--) {
+                if (paramNames[i].equals(name)) {
+                    return arguments[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            if (variables == null) {
+                variables = new HashMap<>();
+            }
+            variables.put(name, value);
+        }
+
+        @Override
+        public TypedValue getRootObject() {
+            return SHARED_CONTEXT.getRootObject();
+        }
+
+        @Override
+        public List<PropertyAccessor> getPropertyAccessors() {
+            return SHARED_CONTEXT.getPropertyAccessors();
+        }
+
+        @Override
+        public List<ConstructorResolver> getConstructorResolvers() {
+            return SHARED_CONTEXT.getConstructorResolvers();
+        }
+
+        @Override
+        public List<MethodResolver> getMethodResolvers() {
+            return SHARED_CONTEXT.getMethodResolvers();
+        }
+
+        @Override
+        public BeanResolver getBeanResolver() {
+            return SHARED_CONTEXT.getBeanResolver();
+        }
+
+        @Override
+        public TypeLocator getTypeLocator() {
+            return SHARED_CONTEXT.getTypeLocator();
+        }
+
+        @Override
+        public TypeConverter getTypeConverter() {
+            return SHARED_CONTEXT.getTypeConverter();
+        }
+
+        @Override
+        public TypeComparator getTypeComparator() {
+            return SHARED_CONTEXT.getTypeComparator();
+        }
+
+        @Override
+        public OperatorOverloader getOperatorOverloader() {
+            return SHARED_CONTEXT.getOperatorOverloader();
+        }
+    }
+
+    /**
+     * 表达式元数据
+     */
+    protected static final class SpelMetadata {
+        private final Expression expression;
+        private final String[] paramNames;
+        private final SpELKeyGenerator keyGenerator;
+
+        private SpelMetadata(Expression expression, String[] paramNames, SpELKeyGenerator keyGenerator) {
+            this.expression = expression;
+            this.paramNames = paramNames;
+            this.keyGenerator = keyGenerator;
+        }
+    }
 }
 
 
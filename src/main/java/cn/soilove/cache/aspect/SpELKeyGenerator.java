@@ -0,0 +1,162 @@
+package cn.soilove.cache.aspect;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 简单key表达式的预编译生成器，不经过SpEL解析执行
+ * <pre>
+ * 支持的表达式：
+ *  key="#id"
+ *  key="#user.id"
+ *  key="'name:' + #user.name"
+ * 其他表达式仍使用SpEL执行
+ * </pre>
+ **/
+public class SpELKeyGenerator {
+
+    /**
+     * 简单表达式：可选的字符串前缀 + 参数引用 + 可选的属性路径
+     */
+    private static final Pattern SIMPLE_PATTERN = Pattern.compile(
+            "^\\s*(?:'([^']*)'\\s*\\+\\s*)?#([A-Za-z_$][\\w$]*)((?:\\.[A-Za-z_$][\\w$]*)*)\\s*$");
+
+    /**
+     * 获取值的方法类型：Object (Object)
+     */
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * 字符串前缀，为空表示单个参数引用
+     */
+    private final String prefix;
+
+    /**
+     * 参数下标
+     */
+    private final int argIndex;
+
+    /**
+     * 属性读取方法
+     */
+    private final MethodHandle[] getters;
+
+    private SpELKeyGenerator(String prefix, int argIndex, MethodHandle[] getters) {
+        this.prefix = prefix;
+        this.argIndex = argIndex;
+        this.getters = getters;
+    }
+
+    /**
+     * 预编译表达式，非简单表达式返回null
+     * @param method 方法
+     * @param spel 表达式
+     * @param paramNames 参数名，方法参数之后可追加额外变量名
+     * @return
+     */
+    public static SpELKeyGenerator compile(Method method, String spel, String[] paramNames) {
+        Matcher matcher = SIMPLE_PATTERN.matcher(spel);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String name = matcher.group(2);
+        // #root、#this为SpEL保留变量
+        if ("root".equals(name) || "this".equals(name)) {
+            return null;
+        }
+        int argIndex = -1;
+        for (int i = 0; i < paramNames.length; i++) {
+            if (paramNames[i].equals(name)) {
+                argIndex = i;
+                break;
+            }
+        }
+        if (argIndex < 0) {
+            return null;
+        }
+
+        // 按参数声明类型解析属性读取方法
+        String path = matcher.group(3);
+        String[] properties = path.isEmpty() ? new String[0] : path.substring(1).split("\\.");
+        MethodHandle[] getters = new MethodHandle[properties.length];
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?> type = argIndex < parameterTypes.length ? parameterTypes[argIndex] : Object.class;
+        for (int i = 0; i < properties.length; i++) {
+            Method readMethod = findReadMethod(type, properties[i]);
+            if (readMethod == null) {
+                return null;
+            }
+            try {
+                ReflectionUtils.makeAccessible(readMethod);
+                getters[i] = MethodHandles.lookup().unreflect(readMethod).asType(GETTER_TYPE);
+            } catch (IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+            type = readMethod.getReturnType();
+        }
+        return new SpELKeyGenerator(matcher.group(1), argIndex, getters);
+    }
+
+    /**
+     * 生成key，结果与SpEL执行后转换为String一致
+     * @param arguments 参数
+     * @param defaultResult 属性路径中间值为空或读取失败时的默认结果
+     * @return
+     */
+    public String generate(Object[] arguments, String defaultResult) {
+        Object value = arguments[argIndex];
+        for (MethodHandle getter : getters) {
+            if (value == null) {
+                return defaultResult;
+            }
+            try {
+                value = (Object) getter.invokeExact(value);
+            } catch (Throwable e) {
+                return defaultResult;
+            }
+        }
+        if (prefix == null) {
+            return toString(value);
+        }
+        return prefix + (value == null ? "null" : toString(value));
+    }
+
+    /**
+     * 与SpEL一致，使用默认类型转换转为String
+     * @param value
+     * @return
+     */
+    private static String toString(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        return DefaultConversionService.getSharedInstance().convert(value, String.class);
+    }
+
+    /**
+     * 查找属性读取方法，原始类型和无读取方法的属性不支持
+     * @param type
+     * @param property
+     * @return
+     */
+    private static Method findReadMethod(Class<?> type, String property) {
+        if (type.isPrimitive() || type.isArray()) {
+            return null;
+        }
+        try {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+            return descriptor != null ? descriptor.getReadMethod() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
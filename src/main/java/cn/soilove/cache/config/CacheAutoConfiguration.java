@@ -1,11 +1,22 @@
 package cn.soilove.cache.config;
 
+import cn.soilove.cache.properties.LocalCacheProperties;
 import cn.soilove.cache.properties.RedisProperties;
+import cn.soilove.cache.serializer.CacheSerializers;
 import cn.soilove.cache.service.RedisService;
 import cn.soilove.cache.service.impl.JedisClusterServiceImpl;
 import cn.soilove.cache.service.impl.JedisSentinelServiceImpl;
 import cn.soilove.cache.service.impl.JedisSingleServiceImpl;
+import cn.soilove.cache.service.support.CacheCompressor;
+import cn.soilove.cache.service.support.EasyCacheRefresher;
+import cn.soilove.cache.service.support.LocalLockCoalescer;
+import cn.soilove.cache.service.support.LockNotifier;
+import cn.soilove.cache.service.support.LockWatchdog;
+import cn.soilove.cache.service.support.NearCacheInvalidator;
+import cn.soilove.cache.service.support.NearCacheTracker;
+import cn.soilove.cache.service.support.RedisBatchExecutor;
 import cn.soilove.cache.utils.CacheStarterCode;
+import cn.soilove.cache.utils.CaffeineCacheUtils;
 import cn.soilove.cache.utils.ExceptionStringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -13,11 +24,16 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 import redis.clients.jedis.*;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * 自动配置类
@@ -28,16 +44,29 @@ import java.util.Set;
 @Slf4j(topic = "[starter][cache]")
 @Configuration
 @ConditionalOnClass(value = {RedisService.class})
-@EnableConfigurationProperties(RedisProperties.class)
+@EnableConfigurationProperties({RedisProperties.class, LocalCacheProperties.class})
 public class CacheAutoConfiguration {
 
     private static final String MODE_SINGLE = "single";
     private static final String MODE_SENTINEL = "sentinel";
     private static final String MODE_CLUSTER = "cluster";
 
+    private static final String NEAR_CACHE_MODE_TRACKING = "tracking";
+
     @Resource
     private RedisProperties redisProperties;
 
+    @Resource
+    private LocalCacheProperties localCacheProperties;
+
+    /**
+     * 本地缓存命名空间配置，命名空间在首次使用时按配置创建
+     */
+    @PostConstruct
+    public void localCacheConfig(){
+        CaffeineCacheUtils.configure(localCacheProperties);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public JedisPool jedisSingle(){
@@ -133,6 +162,11 @@ public class CacheAutoConfiguration {
     @ConditionalOnMissingBean
     public RedisService redisBean() {
 
+        // 对象缓存的默认序列化器
+        CacheSerializers.setDefault(redisProperties.getSerializer());
+        // 对象缓存的默认压缩阈值
+        CacheCompressor.setDefaultThreshold(redisProperties.getCompressThreshold());
+
         // 单点
         if(redisProperties.getMode().equals(MODE_SINGLE)){
             return new JedisSingleServiceImpl();
@@ -149,6 +183,62 @@ public class CacheAutoConfiguration {
         throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(),"[starter][cache][错误]redis配置错误，请指定模式，参数:[redis.mode]！");
     }
 
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public EasyCacheRefresher easyCacheRefresher() {
+        return new EasyCacheRefresher(redisProperties.getRefreshThreads(), redisProperties.getRefreshQueueCapacity());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public RedisBatchExecutor redisBatchExecutor() {
+        return new RedisBatchExecutor(redisProperties.getBatchThreads());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public NearCacheInvalidator nearCacheInvalidator() {
+        NearCacheInvalidator invalidator = new NearCacheInvalidator(redisProperties.getNearCacheChannel(), redisProperties.isNearCacheEnabled());
+        if(redisProperties.isNearCacheEnabled() && NEAR_CACHE_MODE_TRACKING.equals(redisProperties.getNearCacheMode())){
+            // 集群模式下key分布在多个节点，需每个节点建立跟踪连接，暂回退为发布/订阅广播
+            if(redisProperties.getMode().equals(MODE_CLUSTER)){
+                log.warn("多级缓存tracking模式不支持集群，使用pubsub模式");
+                return invalidator;
+            }
+            List<String> prefixes = new ArrayList<>();
+            if(!StringUtils.isEmpty(redisProperties.getNearCacheTrackingPrefixes())){
+                for(String prefix : redisProperties.getNearCacheTrackingPrefixes().split(",")){
+                    if(!prefix.trim().isEmpty()){
+                        prefixes.add(prefix.trim());
+                    }
+                }
+            }
+            Supplier<HostAndPort> hostSupplier = redisProperties.getMode().equals(MODE_SENTINEL)
+                    ? () -> jedisSentinel().getCurrentHostMaster()
+                    : () -> new HostAndPort(redisProperties.getHost(), redisProperties.getPort());
+            invalidator.setTracker(new NearCacheTracker(hostSupplier, redisProperties.getPassword(), redisProperties.getTimeOut(), prefixes));
+        }
+        return invalidator;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public LockNotifier lockNotifier() {
+        return new LockNotifier(redisProperties.getLockNotifyChannelPrefix(), redisProperties.isLockNotifyEnabled());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LocalLockCoalescer localLockCoalescer() {
+        return new LocalLockCoalescer(redisProperties.isLockCoalesceEnabled(), redisProperties.getLockMaxHandover());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public LockWatchdog lockWatchdog() {
+        return new LockWatchdog(redisProperties.getLockWatchdogInterval());
+    }
+
     /**
      * 设置连接池信息
      * @return
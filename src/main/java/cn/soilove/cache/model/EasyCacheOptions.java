@@ -0,0 +1,147 @@
+package cn.soilove.cache.model;
+
+import lombok.Data;
+
+/**
+ * 简易缓存参数
+ **/
+@Data
+public class EasyCacheOptions {
+
+    /**
+     * 默认防击穿等待时间 - 单位:毫秒
+     */
+    public static final long DEFAULT_GUARD_WAIT_MILLIS = 3000;
+
+    /**
+     * 缓存时间 - 单位:秒
+     */
+    private int seconds;
+
+    /**
+     * 空值缓存时间 - 单位:秒
+     */
+    private int nullSeconds;
+
+    /**
+     * 是否防击穿加载：缓存失效时仅一个调用方获取互斥锁并重建缓存
+     */
+    private boolean guard;
+
+    /**
+     * 防击穿加载 - 未获取互斥锁时的最大等待时间，超时后直接加载 - 单位:毫秒
+     */
+    private long guardWaitMillis = DEFAULT_GUARD_WAIT_MILLIS;
+
+    /**
+     * 提前重建系数(XFetch算法beta)，大于0时开启：读取时按重建耗时和剩余时间随机决定是否提前重建，
+     * 值越大越倾向提前重建，推荐1.0
+     */
+    private double beta;
+
+    /**
+     * 软超时时间，大于0且小于缓存时间时开启：超过软超时后直接返回旧值并后台刷新，
+     * 仅超过缓存时间(硬超时)失效后才阻塞加载 - 单位:秒
+     */
+    private int softSeconds;
+
+    /**
+     * 软超时后是否在后台线程池刷新，默认false在调用线程同步刷新；
+     * 后台刷新时方法在线程池中执行，调用线程的事务、ThreadLocal、安全上下文和可重入锁均不可用，
+     * 仅在方法不依赖调用线程上下文时开启
+     */
+    private boolean asyncRefresh;
+
+    /**
+     * 对象缓存的序列化器，名称(fastjson、binary)或自定义实现的类全名，为空时使用全局配置
+     */
+    private String serializer;
+
+    /**
+     * 对象缓存的压缩阈值，序列化后超过此字节数时压缩，0不压缩，小于0时使用全局配置 - 单位:字节
+     */
+    private int compressThreshold = -1;
+
+    /**
+     * 构建参数
+     * @param seconds 缓存时间-秒
+     * @param nullSeconds 空值缓存时间-秒
+     * @return
+     */
+    public static EasyCacheOptions of(int seconds, int nullSeconds){
+        EasyCacheOptions options = new EasyCacheOptions();
+        options.setSeconds(seconds);
+        options.setNullSeconds(nullSeconds);
+        return options;
+    }
+
+    /**
+     * 开启防击穿加载
+     * @param guardWaitMillis 最大等待时间-毫秒
+     * @return
+     */
+    public EasyCacheOptions guard(long guardWaitMillis){
+        this.guard = true;
+        this.guardWaitMillis = guardWaitMillis;
+        return this;
+    }
+
+    /**
+     * 开启概率提前重建
+     * @param beta 提前重建系数
+     * @return
+     */
+    public EasyCacheOptions earlyRefresh(double beta){
+        this.beta = beta;
+        return this;
+    }
+
+    /**
+     * 开启软超时刷新：超过软超时后由读取到旧值的调用线程同步刷新，后台刷新见asyncRefresh
+     * @param softSeconds 软超时时间-秒
+     * @return
+     */
+    public EasyCacheOptions staleWhileRevalidate(int softSeconds){
+        this.softSeconds = softSeconds;
+        return this;
+    }
+
+    /**
+     * 开启软超时后台刷新，方法需可在后台线程执行(不依赖调用线程的事务、ThreadLocal等上下文)
+     * @param softSeconds 软超时时间-秒
+     * @return
+     */
+    public EasyCacheOptions asyncRefresh(int softSeconds){
+        this.softSeconds = softSeconds;
+        this.asyncRefresh = true;
+        return this;
+    }
+
+    /**
+     * 指定序列化器
+     * @param serializer 名称或类全名
+     * @return
+     */
+    public EasyCacheOptions serializer(String serializer){
+        this.serializer = serializer;
+        return this;
+    }
+
+    /**
+     * 指定压缩阈值
+     * @param compressThreshold 压缩阈值-字节，0不压缩
+     * @return
+     */
+    public EasyCacheOptions compress(int compressThreshold){
+        this.compressThreshold = compressThreshold;
+        return this;
+    }
+
+    /**
+     * 是否开启软超时后台刷新
+     * @return
+     */
+    public boolean isStaleWhileRevalidate(){
+        return softSeconds > 0 && softSeconds < seconds;
+    }
+}
@@ -0,0 +1,30 @@
+package cn.soilove.cache.model;
+
+import lombok.Data;
+
+/**
+ * 简易缓存值，记录重建耗时和失效时间
+ **/
+@Data
+public class EasyCacheValue<V> {
+
+    /**
+     * 缓存内容
+     */
+    private V value;
+
+    /**
+     * 重建耗时 - 单位:毫秒
+     */
+    private long delta;
+
+    /**
+     * 失效时间戳 - 单位:毫秒，0表示未记录(旧格式数据)
+     */
+    private long expireAt;
+
+    /**
+     * 软失效时间戳 - 单位:毫秒，0表示未开启，超过后返回旧值并后台刷新
+     */
+    private long softExpireAt;
+}
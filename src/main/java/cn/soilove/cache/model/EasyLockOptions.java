@@ -0,0 +1,72 @@
+package cn.soilove.cache.model;
+
+import lombok.Data;
+
+/**
+ * 分布式锁参数
+ **/
+@Data
+public class EasyLockOptions {
+
+    /**
+     * 持有锁超时时间，开启续期时为租约时间 - 单位:秒
+     */
+    private int seconds;
+
+    /**
+     * 申请锁等待时间，大于0时自旋等待，0获取失败立即返回 - 单位:秒
+     */
+    private int waitSeconds;
+
+    /**
+     * 是否自动续期：持有期间每过租约的1/3续期一次，直到解锁，租约时间需大于1.5倍续期检查间隔
+     */
+    private boolean watchdog;
+
+    /**
+     * 是否可重入：redis中以hash记录 持有者令牌 -> 次数，
+     * 已持有锁(包括以非可重入方式加的锁)且租约未过期的线程再次加锁时仅增加本地计数，不访问redis，解锁次数与加锁次数一致时释放
+     */
+    private boolean reentrant;
+
+    /**
+     * 构建参数
+     * @param seconds 持有锁超时时间-秒
+     * @return
+     */
+    public static EasyLockOptions of(int seconds){
+        EasyLockOptions options = new EasyLockOptions();
+        options.setSeconds(seconds);
+        return options;
+    }
+
+    /**
+     * 开启自旋等待
+     * @param waitSeconds 申请锁等待时间-秒
+     * @return
+     */
+    public EasyLockOptions spin(int waitSeconds){
+        this.waitSeconds = waitSeconds;
+        return this;
+    }
+
+    /**
+     * 是否自动续期
+     * @param watchdog
+     * @return
+     */
+    public EasyLockOptions watchdog(boolean watchdog){
+        this.watchdog = watchdog;
+        return this;
+    }
+
+    /**
+     * 是否可重入
+     * @param reentrant
+     * @return
+     */
+    public EasyLockOptions reentrant(boolean reentrant){
+        this.reentrant = reentrant;
+        return this;
+    }
+}
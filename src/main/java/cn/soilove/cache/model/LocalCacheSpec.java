@@ -0,0 +1,65 @@
+package cn.soilove.cache.model;
+
+import lombok.Data;
+
+/**
+ * 本地缓存命名空间配置
+ **/
+@Data
+public class LocalCacheSpec {
+
+    /**
+     * 最大缓存数量，与maximumWeight、maximumBytes三选一，均未配置时使用全局默认数量
+     */
+    private Long maximumSize;
+
+    /**
+     * 最大内存占用，按sizer估算的缓存项大小淘汰 - 单位:字节
+     */
+    private Long maximumBytes;
+
+    /**
+     * 缓存项大小估算：cn.soilove.cache.utils.CacheObjectSizer实现的类全名，为空时使用全局配置
+     */
+    private String sizer;
+
+    /**
+     * 最大权重，需同时配置weigher
+     */
+    private Long maximumWeight;
+
+    /**
+     * 权重计算器：com.github.benmanes.caffeine.cache.Weigher实现的类全名
+     */
+    private String weigher;
+
+    /**
+     * 写入后过期时间，未配置时使用调用方传入的过期时间 - 单位:秒
+     */
+    private Long expireAfterWrite;
+
+    /**
+     * 访问后过期时间 - 单位:秒
+     */
+    private Long expireAfterAccess;
+
+    /**
+     * 是否按缓存项过期：每次写入使用调用方传入的过期时间，不能与expireAfterWrite、expireAfterAccess同时配置
+     */
+    private boolean variableExpiry = false;
+
+    /**
+     * 空值缓存时间，调用方未指定时使用，未配置时与缓存时间相同，仅variableExpiry开启时生效 - 单位:秒
+     */
+    private Long nullValueExpire;
+
+    /**
+     * 初始容量
+     */
+    private Integer initialCapacity;
+
+    /**
+     * 是否记录命中率等统计
+     */
+    private boolean recordStats = false;
+}
@@ -0,0 +1,62 @@
+package cn.soilove.cache.model;
+
+import cn.soilove.cache.service.RedisService;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * 分布式锁持有凭证
+ * <pre>
+ *     token为加锁时写入的持有者令牌，仅令牌一致时才能解锁，锁过期后被他人持有时不会误删；
+ *     令牌可传递给其他线程或服务，通过RedisService.unLock(key, token)解锁、isLockOwner(key, token)校验；
+ *     支持try-with-resources，结束时自动解锁
+ * </pre>
+ **/
+@Getter
+public class LockHandle implements AutoCloseable {
+
+    /**
+     * 锁key，不含前缀
+     */
+    private final String key;
+
+    /**
+     * 持有者令牌
+     */
+    private final String token;
+
+    @Getter(AccessLevel.NONE)
+    private final RedisService redisService;
+
+    public LockHandle(String key, String token, RedisService redisService) {
+        this.key = key;
+        this.token = token;
+        this.redisService = redisService;
+    }
+
+    /**
+     * 解锁，仅令牌一致时删除
+     * @return true-解锁成功/false-锁已过期或不属于当前持有者
+     */
+    public boolean unlock(){
+        return redisService.unLock(key, token);
+    }
+
+    /**
+     * 是否仍持有锁
+     * @return
+     */
+    public boolean isHeld(){
+        return redisService.isLockOwner(key, token);
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+
+    @Override
+    public String toString() {
+        return "LockHandle{key=" + key + ", token=" + token + "}";
+    }
+}
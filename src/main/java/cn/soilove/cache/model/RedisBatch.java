@@ -0,0 +1,219 @@
+package cn.soilove.cache.model;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.utils.ExceptionStringUtils;
+import lombok.Getter;
+import redis.clients.jedis.Builder;
+import redis.clients.jedis.BuilderFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * redis批量命令
+ * <pre>
+ *     单点和主从模式使用一个管道发送；集群模式按slot所在节点分组，每个节点一个管道并行发送
+ *     执行结果按添加顺序返回，执行失败的命令对应位置为异常对象(JedisDataException)
+ *     每条命令仅允许操作一个key
+ * </pre>
+ **/
+public class RedisBatch {
+
+    /**
+     * 命令列表
+     */
+    private final List<Command> commands = new ArrayList<>();
+
+    public RedisBatch set(String key, String value) {
+        return command(key, Protocol.Command.SET, BuilderFactory.STRING, value);
+    }
+
+    public RedisBatch set(String key, String value, int seconds) {
+        return command(key, Protocol.Command.SET, BuilderFactory.STRING, value, "EX", String.valueOf(seconds));
+    }
+
+    public RedisBatch set(byte[] key, byte[] value, int seconds) {
+        return command(key, Protocol.Command.SET, BuilderFactory.STRING, value, SafeEncoder.encode("EX"), Protocol.toByteArray(seconds));
+    }
+
+    public RedisBatch get(String key) {
+        return command(key, Protocol.Command.GET, BuilderFactory.STRING);
+    }
+
+    public RedisBatch exists(String key) {
+        return command(key, Protocol.Command.EXISTS, BuilderFactory.BOOLEAN);
+    }
+
+    public RedisBatch del(String key) {
+        return command(key, Protocol.Command.DEL, BuilderFactory.LONG);
+    }
+
+    public RedisBatch expire(String key, int seconds) {
+        return command(key, Protocol.Command.EXPIRE, BuilderFactory.LONG, String.valueOf(seconds));
+    }
+
+    public RedisBatch incrBy(String key, long increment) {
+        return command(key, Protocol.Command.INCRBY, BuilderFactory.LONG, String.valueOf(increment));
+    }
+
+    public RedisBatch hset(String key, String field, String value) {
+        return command(key, Protocol.Command.HSET, BuilderFactory.LONG, field, value);
+    }
+
+    public RedisBatch hget(String key, String field) {
+        return command(key, Protocol.Command.HGET, BuilderFactory.STRING, field);
+    }
+
+    public RedisBatch hdel(String key, String field) {
+        return command(key, Protocol.Command.HDEL, BuilderFactory.LONG, field);
+    }
+
+    public RedisBatch sadd(String key, String member) {
+        return command(key, Protocol.Command.SADD, BuilderFactory.LONG, member);
+    }
+
+    public RedisBatch zadd(String key, double score, String member) {
+        return command(key, Protocol.Command.ZADD, BuilderFactory.LONG, String.valueOf(score), member);
+    }
+
+    public RedisBatch rpush(String key, String value) {
+        return command(key, Protocol.Command.RPUSH, BuilderFactory.LONG, value);
+    }
+
+    public RedisBatch setbit(String key, long offset, boolean value) {
+        return command(key, Protocol.Command.SETBIT, BuilderFactory.BOOLEAN, String.valueOf(offset), value ? "1" : "0");
+    }
+
+    public RedisBatch getbit(String key, long offset) {
+        return command(key, Protocol.Command.GETBIT, BuilderFactory.BOOLEAN, String.valueOf(offset));
+    }
+
+    /**
+     * 执行lua脚本，脚本仅允许操作一个key
+     * @param script 脚本
+     * @param key 脚本中的KEYS[1]，集群模式按此key路由
+     * @param args 脚本中的ARGV
+     * @return
+     */
+    public RedisBatch eval(String script, String key, String... args) {
+        return script(Protocol.Command.EVAL, script, key, args);
+    }
+
+    /**
+     * 按SHA1执行已加载的lua脚本，脚本仅允许操作一个key，未加载时对应结果为JedisNoScriptException
+     * @param script 脚本
+     * @param key 脚本中的KEYS[1]，集群模式按此key路由
+     * @param args 脚本中的ARGV
+     * @return
+     */
+    public RedisBatch evalsha(RedisScript script, String key, String... args) {
+        return script(Protocol.Command.EVALSHA, script.getSha1(), key, args);
+    }
+
+    private RedisBatch script(ProtocolCommand command, String scriptOrSha1, String key, String... args) {
+        byte[][] rawArgs = new byte[args.length + 3][];
+        rawArgs[0] = SafeEncoder.encode(scriptOrSha1);
+        rawArgs[1] = Protocol.toByteArray(1);
+        rawArgs[2] = SafeEncoder.encode(key);
+        for(int i = 0; i < args.length; i++){
+            rawArgs[i + 3] = SafeEncoder.encode(args[i]);
+        }
+        commands.add(new Command(rawArgs[2], command, rawArgs, null));
+        return this;
+    }
+
+    /**
+     * 添加命令
+     * @param key 操作的key，集群模式按此key路由
+     * @param command 命令
+     * @param builder 结果转换，为空时返回原始结果
+     * @param args key之后的参数
+     * @return
+     */
+    public RedisBatch command(String key, ProtocolCommand command, Builder<?> builder, String... args) {
+        return command(SafeEncoder.encode(key), command, builder, SafeEncoder.encodeMany(args));
+    }
+
+    /**
+     * 添加命令
+     * @param key 操作的key，集群模式按此key路由
+     * @param command 命令
+     * @param builder 结果转换，为空时返回原始结果
+     * @param args key之后的参数
+     * @return
+     */
+    public RedisBatch command(byte[] key, ProtocolCommand command, Builder<?> builder, byte[]... args) {
+        byte[][] rawArgs = new byte[args.length + 1][];
+        rawArgs[0] = key;
+        System.arraycopy(args, 0, rawArgs, 1, args.length);
+        commands.add(new Command(key, command, rawArgs, builder));
+        return this;
+    }
+
+    public List<Command> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     * 检查批量执行结果，存在失败命令时抛出异常
+     * @param results
+     * @return
+     */
+    public static List<Object> checkResults(List<Object> results) {
+        for (Object res : results) {
+            if (res instanceof Exception) {
+                throw new CacheStarterException("[错误]redis命令执行异常，msg=" + ExceptionStringUtils.getStackTraceAsString((Exception) res));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 单条命令
+     */
+    @Getter
+    public static final class Command {
+
+        /**
+         * 路由key
+         */
+        private final byte[] key;
+
+        private final ProtocolCommand command;
+
+        /**
+         * 完整参数，包含key
+         */
+        private final byte[][] args;
+
+        private final Builder<?> builder;
+
+        private Command(byte[] key, ProtocolCommand command, byte[][] args, Builder<?> builder) {
+            this.key = key;
+            this.command = command;
+            this.args = args;
+            this.builder = builder;
+        }
+
+        /**
+         * 转换原始结果
+         * @param data
+         * @return
+         */
+        public Object build(Object data) {
+            return builder == null || data == null ? data : builder.build(data);
+        }
+    }
+}
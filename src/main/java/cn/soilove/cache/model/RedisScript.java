@@ -0,0 +1,46 @@
+package cn.soilove.cache.model;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * redis lua脚本
+ * <pre>
+ *     预先计算脚本的SHA1，通过EVALSHA执行，只发送40字节摘要而非完整脚本；
+ *     redis未缓存该脚本(重启、SCRIPT FLUSH、集群新节点)时返回NOSCRIPT，SCRIPT LOAD后重试
+ * </pre>
+ **/
+@Getter
+public class RedisScript {
+
+    /**
+     * 脚本内容
+     */
+    private final String script;
+
+    /**
+     * 脚本SHA1，与SCRIPT LOAD返回值一致
+     */
+    private final String sha1;
+
+    public RedisScript(String script) {
+        this.script = script;
+        this.sha1 = sha1Hex(script);
+    }
+
+    private static String sha1Hex(String script){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for(byte b : digest){
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
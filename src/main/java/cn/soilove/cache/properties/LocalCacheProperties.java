@@ -0,0 +1,41 @@
+package cn.soilove.cache.properties;
+
+import cn.soilove.cache.model.LocalCacheSpec;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地缓存配置
+ **/
+@Data
+@ConfigurationProperties(prefix = LocalCacheProperties.PREFIX )
+public class LocalCacheProperties {
+
+    public static final String PREFIX = "local-cache";
+
+    /**
+     * 未配置的命名空间的默认最大缓存数量
+     */
+    private Long defaultMaximumSize = 1000_0000L;
+
+    /**
+     * 全部按内存淘汰的命名空间的总内存预算，配置后未配置数量和权重的命名空间同样按内存淘汰 - 单位:字节
+     * 配置maximumSize、maximumWeight的命名空间不计入总预算
+     */
+    private Long maximumBytes;
+
+    /**
+     * 缓存项大小估算：cn.soilove.cache.utils.CacheObjectSizer实现的类全名，默认按对象布局和字段反射估算
+     */
+    private String sizer;
+
+    /**
+     * 命名空间配置
+     * key=命名空间
+     * value=缓存配置
+     */
+    private Map<String, LocalCacheSpec> namespaces = new LinkedHashMap<>();
+}
@@ -72,6 +72,87 @@ public class RedisProperties {
      */
     private Long maxWaitMillis = -1L;
 
+    /**
+     * 缓存后台刷新线程数
+     */
+    private Integer refreshThreads = 4;
+
+    /**
+     * 缓存后台刷新等待队列容量，队列满时跳过刷新
+     */
+    private Integer refreshQueueCapacity = 1000;
+
+    /**
+     * 集群模式批量命令的节点并行线程数
+     */
+    private Integer batchThreads = 8;
+
+    /**
+     * 对象缓存的默认序列化器：fastjson、binary(紧凑二进制)或自定义CacheSerializer实现的类全名
+     */
+    private String serializer = "fastjson";
+
+    /**
+     * 对象缓存的压缩阈值，序列化后超过此字节数时使用Deflate压缩，0不压缩 - 单位:字节
+     */
+    private Integer compressThreshold = 0;
+
+    /**
+     * 注解key的SpEL表达式编译模式：off-解释执行，immediate-立即编译，mixed-多次执行后编译，编译失败时回退解释执行
+     */
+    private String spelCompilerMode = "mixed";
+
+    /**
+     * 是否在容器启动完成后预加载注解方法的元数据，默认首次调用时加载
+     */
+    private boolean eagerAspectMetadata = false;
+
+    /**
+     * 是否开启多级缓存失效广播：删除redis缓存时发布失效消息，并订阅其他节点的失效消息清理本地缓存
+     */
+    private boolean nearCacheEnabled = false;
+
+    /**
+     * 多级缓存失效消息频道
+     */
+    private String nearCacheChannel = "cache:near:invalidate";
+
+    /**
+     * 多级缓存失效方式：pubsub-删除时发布失效消息，tracking-redis服务端跟踪(redis 6+，集群模式回退为pubsub)
+     */
+    private String nearCacheMode = "pubsub";
+
+    /**
+     * tracking模式跟踪的key前缀，英文逗号分隔，为空时跟踪全部key
+     */
+    private String nearCacheTrackingPrefixes;
+
+    /**
+     * 是否开启分布式等待锁释放通知：释放锁时发布消息，等待线程收到后立即重试，关闭时按指数退避轮询
+     */
+    private boolean lockNotifyEnabled = true;
+
+    /**
+     * 分布式等待锁释放频道前缀，完整频道为前缀 + 锁key
+     */
+    private String lockNotifyChannelPrefix = "cache:lock:notify:";
+
+    /**
+     * 是否开启分布式锁本地合并：同一节点同一个锁只有一个线程竞争redis锁，其余线程本地排队并在释放时直接移交；
+     * 持有线程未解锁时本地持有以锁超时时间为限，过期后排队线程即可加锁
+     */
+    private boolean lockCoalesceEnabled = true;
+
+    /**
+     * 分布式锁最大连续本地移交次数，达到后释放redis锁让其他节点竞争，0不移交
+     */
+    private int lockMaxHandover = 16;
+
+    /**
+     * 分布式锁续期检查间隔 - 单位:毫秒，开启续期的锁每过租约的1/3续期一次，租约时间需大于1.5倍检查间隔，否则加锁时抛出异常
+     */
+    private long lockWatchdogInterval = 1000;
+
 
 
 }
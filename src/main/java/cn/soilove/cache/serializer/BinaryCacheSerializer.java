@@ -0,0 +1,650 @@
+package cn.soilove.cache.serializer;
+
+import cn.soilove.cache.config.CacheStarterException;
+import com.alibaba.fastjson.JSON;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 紧凑二进制序列化
+ * <pre>
+ *     按声明类型读写，不写入类名和字段名：
+ *     基本类型及包装类、String、BigDecimal、BigInteger、Date、LocalDate、LocalDateTime、LocalTime、Instant、枚举、数组、集合、Map
+ *     以及有无参构造方法的对象(按字段读写，字段结构变化时视为缓存失效)；
+ *     声明类型为Object、接口、抽象类等无法确定结构的值使用json格式；
+ *     对象的实际类型为声明类型的子类时写入实际类名，读取时校验为声明类型的子类后按实际类型读取；
+ *     不支持循环引用，对象层级超过MAX_DEPTH时抛出异常
+ * </pre>
+ **/
+public class BinaryCacheSerializer implements CacheSerializer {
+
+    public static final byte TAG = 2;
+
+    private static final byte NULL = 0;
+
+    private static final byte NOT_NULL = 1;
+
+    /**
+     * 非空，实际类型为声明类型的子类，之后为实际类名
+     */
+    private static final byte SUBTYPE = 2;
+
+    /**
+     * 最大对象层级，超过时视为循环引用
+     */
+    private static final int MAX_DEPTH = 256;
+
+    /**
+     * 对象结构缓存
+     */
+    private static final Map<Class<?>, ClassSchema> schemaMap = new ConcurrentHashMap<>();
+
+    @Override
+    public byte getTag() {
+        return TAG;
+    }
+
+    @Override
+    public String getName() {
+        return CacheSerializers.BINARY;
+    }
+
+    @Override
+    public byte[] serialize(Object value, Type type) {
+        Output output = new Output(256);
+        try {
+            write(output, value, type, 0);
+        } catch (IllegalAccessException e) {
+            throw new CacheStarterException("[错误]缓存序列化异常，type=" + type.getTypeName() + "，msg=" + e.getMessage());
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, int offset, int length, Type type) {
+        Input input = new Input(bytes, offset, offset + length);
+        try {
+            Object value = read(input, type, 0);
+            if (input.position != input.limit) {
+                throw new CacheStarterException("[错误]缓存反序列化异常，数据长度不匹配，type=" + type.getTypeName());
+            }
+            return value;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (e instanceof CacheStarterException) {
+                throw (CacheStarterException) e;
+            }
+            throw new CacheStarterException("[错误]缓存反序列化异常，type=" + type.getTypeName() + "，msg=" + e);
+        }
+    }
+
+    private void write(Output output, Object value, Type type, int depth) throws IllegalAccessException {
+        Class<?> raw = rawClass(type);
+        if (raw.isPrimitive()) {
+            writePrimitive(output, value, raw);
+            return;
+        }
+        if (value == null) {
+            output.writeByte(NULL);
+            return;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new CacheStarterException("[错误]缓存序列化异常，对象层级超过" + MAX_DEPTH + "，可能存在循环引用，type=" + type.getTypeName());
+        }
+        // 按字段读写的对象，实际类型为子类时写入实际类名，避免丢失子类字段
+        Class<?> actual = value.getClass();
+        if (actual != raw && schema(raw) != null) {
+            if (schema(actual) == null) {
+                throw new CacheStarterException("[错误]缓存序列化异常，子类无法按字段读写，class=" + actual.getName());
+            }
+            output.writeByte(SUBTYPE);
+            output.writeString(actual.getName());
+            writeValue(output, value, actual, actual, depth);
+            return;
+        }
+        output.writeByte(NOT_NULL);
+        writeValue(output, value, type, raw, depth);
+    }
+
+    private void writeValue(Output output, Object value, Type type, Class<?> raw, int depth) throws IllegalAccessException {
+        Class<?> primitive = unwrap(raw);
+        if (primitive != null) {
+            writePrimitive(output, value, primitive);
+        } else if (raw == String.class) {
+            output.writeString((String) value);
+        } else if (raw == BigDecimal.class || raw == BigInteger.class
+                || raw == LocalDate.class || raw == LocalDateTime.class || raw == LocalTime.class || raw == Instant.class) {
+            output.writeString(value.toString());
+        } else if (raw == Date.class) {
+            output.writeVarLong(((Date) value).getTime());
+        } else if (raw.isEnum()) {
+            output.writeString(((Enum<?>) value).name());
+        } else if (raw == byte[].class) {
+            byte[] bytes = (byte[]) value;
+            output.writeVarInt(bytes.length);
+            output.writeBytes(bytes, 0, bytes.length);
+        } else if (raw.isArray()) {
+            Type componentType = type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            int length = Array.getLength(value);
+            output.writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                write(output, Array.get(value, i), componentType, depth + 1);
+            }
+        } else if (Collection.class.isAssignableFrom(raw)) {
+            Type elementType = typeArgument(type, 0);
+            Collection<?> collection = (Collection<?>) value;
+            output.writeVarInt(collection.size());
+            for (Object element : collection) {
+                write(output, element, elementType, depth + 1);
+            }
+        } else if (Map.class.isAssignableFrom(raw)) {
+            Type keyType = typeArgument(type, 0);
+            Type valueType = typeArgument(type, 1);
+            Map<?, ?> map = (Map<?, ?>) value;
+            output.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(output, entry.getKey(), keyType, depth + 1);
+                write(output, entry.getValue(), valueType, depth + 1);
+            }
+        } else {
+            ClassSchema schema = schema(raw);
+            if (schema == null) {
+                output.writeString(JSON.toJSONString(value));
+                return;
+            }
+            output.writeInt(schema.fingerprint);
+            for (Field field : schema.fields) {
+                write(output, field.get(value), field.getGenericType(), depth + 1);
+            }
+        }
+    }
+
+    private Object read(Input input, Type type, int depth) throws ReflectiveOperationException {
+        Class<?> raw = rawClass(type);
+        if (raw.isPrimitive()) {
+            return readPrimitive(input, raw);
+        }
+        byte flag = input.readByte();
+        if (flag == NULL) {
+            return null;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new CacheStarterException("[错误]缓存反序列化异常，对象层级超过" + MAX_DEPTH + "，type=" + type.getTypeName());
+        }
+        if (flag == SUBTYPE) {
+            Class<?> actual = subtype(raw, input.readString());
+            return readValue(input, actual, actual, depth);
+        }
+        return readValue(input, type, raw, depth);
+    }
+
+    private Object readValue(Input input, Type type, Class<?> raw, int depth) throws ReflectiveOperationException {
+        Class<?> primitive = unwrap(raw);
+        if (primitive != null) {
+            return readPrimitive(input, primitive);
+        } else if (raw == String.class) {
+            return input.readString();
+        } else if (raw == BigDecimal.class) {
+            return new BigDecimal(input.readString());
+        } else if (raw == BigInteger.class) {
+            return new BigInteger(input.readString());
+        } else if (raw == LocalDate.class) {
+            return LocalDate.parse(input.readString());
+        } else if (raw == LocalDateTime.class) {
+            return LocalDateTime.parse(input.readString());
+        } else if (raw == LocalTime.class) {
+            return LocalTime.parse(input.readString());
+        } else if (raw == Instant.class) {
+            return Instant.parse(input.readString());
+        } else if (raw == Date.class) {
+            return new Date(input.readVarLong());
+        } else if (raw.isEnum()) {
+            return enumValue(raw, input.readString());
+        } else if (raw == byte[].class) {
+            int length = input.readVarInt();
+            return input.readBytes(length);
+        } else if (raw.isArray()) {
+            Type componentType = type instanceof GenericArrayType ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            int length = input.readVarInt();
+            Object array = Array.newInstance(raw.getComponentType(), length);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, read(input, componentType, depth + 1));
+            }
+            return array;
+        } else if (Collection.class.isAssignableFrom(raw)) {
+            Type elementType = typeArgument(type, 0);
+            int size = input.readVarInt();
+            Collection<Object> collection = newCollection(raw, size);
+            for (int i = 0; i < size; i++) {
+                collection.add(read(input, elementType, depth + 1));
+            }
+            return collection;
+        } else if (Map.class.isAssignableFrom(raw)) {
+            Type keyType = typeArgument(type, 0);
+            Type valueType = typeArgument(type, 1);
+            int size = input.readVarInt();
+            Map<Object, Object> map = newMap(raw, size);
+            for (int i = 0; i < size; i++) {
+                map.put(read(input, keyType, depth + 1), read(input, valueType, depth + 1));
+            }
+            return map;
+        } else {
+            ClassSchema schema = schema(raw);
+            if (schema == null) {
+                return JSON.parseObject(input.readString(), type);
+            }
+            if (input.readInt() != schema.fingerprint) {
+                throw new CacheStarterException("[错误]缓存反序列化异常，对象结构已变化，class=" + raw.getName());
+            }
+            Object value = schema.constructor.newInstance();
+            for (Field field : schema.fields) {
+                field.set(value, read(input, field.getGenericType(), depth + 1));
+            }
+            return value;
+        }
+    }
+
+    private static void writePrimitive(Output output, Object value, Class<?> type) {
+        if (type == int.class) {
+            output.writeVarInt(zigzag((Integer) value));
+        } else if (type == long.class) {
+            output.writeVarLong(zigzag((Long) value));
+        } else if (type == boolean.class) {
+            output.writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+        } else if (type == double.class) {
+            output.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (type == float.class) {
+            output.writeInt(Float.floatToIntBits((Float) value));
+        } else if (type == short.class) {
+            output.writeVarInt(zigzag((Short) value));
+        } else if (type == byte.class) {
+            output.writeByte((Byte) value);
+        } else {
+            output.writeVarInt((Character) value);
+        }
+    }
+
+    private static Object readPrimitive(Input input, Class<?> type) {
+        if (type == int.class) {
+            return unzigzag(input.readVarInt());
+        } else if (type == long.class) {
+            return unzigzag(input.readVarLong());
+        } else if (type == boolean.class) {
+            return input.readByte() != 0;
+        } else if (type == double.class) {
+            return Double.longBitsToDouble(input.readLong());
+        } else if (type == float.class) {
+            return Float.intBitsToFloat(input.readInt());
+        } else if (type == short.class) {
+            return (short) unzigzag(input.readVarInt());
+        } else if (type == byte.class) {
+            return input.readByte();
+        } else {
+            return (char) input.readVarInt();
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 包装类对应的基本类型
+     * @param type
+     * @return 非包装类返回null
+     */
+    private static Class<?> unwrap(Class<?> type) {
+        if (type == Integer.class) {
+            return int.class;
+        } else if (type == Long.class) {
+            return long.class;
+        } else if (type == Boolean.class) {
+            return boolean.class;
+        } else if (type == Double.class) {
+            return double.class;
+        } else if (type == Float.class) {
+            return float.class;
+        } else if (type == Short.class) {
+            return short.class;
+        } else if (type == Byte.class) {
+            return byte.class;
+        } else if (type == Character.class) {
+            return char.class;
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumValue(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    /**
+     * 加载写入的实际类型，仅允许声明类型的子类
+     * @param raw 声明类型
+     * @param name 实际类名
+     * @return
+     * @throws ClassNotFoundException
+     */
+    private static Class<?> subtype(Class<?> raw, String name) throws ClassNotFoundException {
+        ClassLoader classLoader = raw.getClassLoader() != null ? raw.getClassLoader() : Thread.currentThread().getContextClassLoader();
+        Class<?> actual = Class.forName(name, false, classLoader);
+        if (!raw.isAssignableFrom(actual) || schema(actual) == null) {
+            throw new CacheStarterException("[错误]缓存反序列化异常，实际类型不是声明类型的子类，class=" + name + "，type=" + raw.getName());
+        }
+        return actual;
+    }
+
+    private static Collection<Object> newCollection(Class<?> type, int size) throws ReflectiveOperationException {
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<>(size);
+        }
+        if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<>(size * 4 / 3 + 1);
+        }
+        if (type.isAssignableFrom(TreeSet.class) && SortedSet.class.isAssignableFrom(type)) {
+            return new TreeSet<>();
+        }
+        // 元素按声明的元素类型读取后写入
+        @SuppressWarnings("unchecked")
+        Collection<Object> collection = (Collection<Object>) type.getDeclaredConstructor().newInstance();
+        return collection;
+    }
+
+    private static Map<Object, Object> newMap(Class<?> type, int size) throws ReflectiveOperationException {
+        if (type.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<>(size * 4 / 3 + 1);
+        }
+        if (type.isAssignableFrom(TreeMap.class) && SortedMap.class.isAssignableFrom(type)) {
+            return new TreeMap<>();
+        }
+        // 键值按声明的键值类型读取后写入
+        @SuppressWarnings("unchecked")
+        Map<Object, Object> map = (Map<Object, Object>) type.getDeclaredConstructor().newInstance();
+        return map;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 获取对象结构
+     * @param type
+     * @return 无法按字段读写时返回null
+     */
+    private static ClassSchema schema(Class<?> type) {
+        ClassSchema schema = schemaMap.get(type);
+        if (schema == null) {
+            schema = schemaMap.computeIfAbsent(type, ClassSchema::build);
+        }
+        return schema == ClassSchema.UNSUPPORTED ? null : schema;
+    }
+
+    /**
+     * 对象结构：字段按所在类层级和名称排序，指纹由字段名和类型计算
+     */
+    private static final class ClassSchema {
+
+        private static final ClassSchema UNSUPPORTED = new ClassSchema(null, new Field[0], 0);
+
+        private final Constructor<?> constructor;
+        private final Field[] fields;
+        private final int fingerprint;
+
+        private ClassSchema(Constructor<?> constructor, Field[] fields, int fingerprint) {
+            this.constructor = constructor;
+            this.fields = fields;
+            this.fingerprint = fingerprint;
+        }
+
+        private static ClassSchema build(Class<?> type) {
+            if (type == Object.class || type.isInterface() || Modifier.isAbstract(type.getModifiers())
+                    || type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+                return UNSUPPORTED;
+            }
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+
+                List<Field> fields = new ArrayList<>();
+                int depth = 0;
+                List<Class<?>> hierarchy = new ArrayList<>();
+                for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                    hierarchy.add(0, clazz);
+                }
+                int hash = 1;
+                for (Class<?> clazz : hierarchy) {
+                    Field[] declared = clazz.getDeclaredFields();
+                    Arrays.sort(declared, Comparator.comparing(Field::getName));
+                    for (Field field : declared) {
+                        int modifiers = field.getModifiers();
+                        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        fields.add(field);
+                        hash = 31 * hash + (depth + ":" + field.getName() + ":" + field.getGenericType().getTypeName()).hashCode();
+                    }
+                    depth++;
+                }
+                return new ClassSchema(constructor, fields.toArray(new Field[0]), hash);
+            } catch (NoSuchMethodException | RuntimeException e) {
+                return UNSUPPORTED;
+            }
+        }
+    }
+
+    /**
+     * 写入缓冲
+     */
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+            }
+        }
+
+        private void writeByte(byte value) {
+            ensure(1);
+            buffer[size++] = value;
+        }
+
+        private void writeBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes, 0, bytes.length);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    /**
+     * 读取缓冲
+     */
+    private static final class Input {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        private Input(byte[] buffer, int offset, int limit) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        private void check(int length) {
+            if (length < 0 || position + length > limit) {
+                throw new CacheStarterException("[错误]缓存反序列化异常，数据不完整");
+            }
+        }
+
+        private byte readByte() {
+            check(1);
+            return buffer[position++];
+        }
+
+        private byte[] readBytes(int length) {
+            check(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new CacheStarterException("[错误]缓存反序列化异常，数据格式错误");
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new CacheStarterException("[错误]缓存反序列化异常，数据格式错误");
+        }
+
+        private int readInt() {
+            check(4);
+            int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16)
+                    | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        private long readLong() {
+            return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        }
+
+        private String readString() {
+            int length = readVarInt();
+            check(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package cn.soilove.cache.serializer;
+
+import java.lang.reflect.Type;
+
+/**
+ * 缓存序列化
+ * <pre>
+ *     直接读写byte[]，不经过String
+ *     类型标识写入缓存头部，读取时按标识选择序列化器，切换序列化方式后仍可读取旧数据
+ *     自定义实现通过类全名配置(redis.serializer 或 注解serializer)，标识不可与内置实现重复(1-fastjson，2-binary)
+ * </pre>
+ **/
+public interface CacheSerializer {
+
+    /**
+     * 类型标识
+     * @return
+     */
+    byte getTag();
+
+    /**
+     * 名称
+     * @return
+     */
+    String getName();
+
+    /**
+     * 序列化
+     * @param value 非空值
+     * @param type 值的声明类型
+     * @return
+     */
+    byte[] serialize(Object value, Type type);
+
+    /**
+     * 反序列化
+     * @param bytes
+     * @param offset 内容起始位置
+     * @param length 内容长度
+     * @param type 值的声明类型
+     * @return
+     */
+    Object deserialize(byte[] bytes, int offset, int length, Type type);
+}
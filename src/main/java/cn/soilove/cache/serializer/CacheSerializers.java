@@ -0,0 +1,104 @@
+package cn.soilove.cache.serializer;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.utils.CacheStarterCode;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存序列化器注册表
+ **/
+public class CacheSerializers {
+
+    public static final String FASTJSON = "fastjson";
+
+    public static final String BINARY = "binary";
+
+    /**
+     * 名称或类全名 -> 序列化器
+     */
+    private static final Map<String, CacheSerializer> nameMap = new ConcurrentHashMap<>();
+
+    /**
+     * 类型标识 -> 序列化器
+     */
+    private static final CacheSerializer[] tagArray = new CacheSerializer[256];
+
+    /**
+     * 全局默认序列化器
+     */
+    private static volatile CacheSerializer defaultSerializer;
+
+    static {
+        register(new FastjsonCacheSerializer());
+        register(new BinaryCacheSerializer());
+        defaultSerializer = nameMap.get(FASTJSON);
+    }
+
+    private CacheSerializers() {
+    }
+
+    /**
+     * 注册序列化器
+     * @param serializer
+     */
+    public static synchronized void register(CacheSerializer serializer) {
+        int tag = serializer.getTag() & 0xFF;
+        CacheSerializer exists = tagArray[tag];
+        if (exists != null && exists.getClass() != serializer.getClass()) {
+            throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(), "[starter][cache]序列化器类型标识重复，tag=" + tag + "，" + exists.getClass().getName() + "，" + serializer.getClass().getName());
+        }
+        tagArray[tag] = serializer;
+        nameMap.put(serializer.getName(), serializer);
+        nameMap.put(serializer.getClass().getName(), serializer);
+    }
+
+    /**
+     * 获取序列化器
+     * @param name 名称或类全名，为空时返回全局默认序列化器
+     * @return
+     */
+    public static CacheSerializer get(String name) {
+        if (StringUtils.isEmpty(name)) {
+            return defaultSerializer;
+        }
+        CacheSerializer serializer = nameMap.get(name);
+        if (serializer != null) {
+            return serializer;
+        }
+        // 按类全名加载自定义序列化器
+        try {
+            serializer = (CacheSerializer) ClassUtils.forName(name, CacheSerializers.class.getClassLoader()).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(), "[starter][cache]序列化器配置错误，serializer=" + name);
+        }
+        register(serializer);
+        return serializer;
+    }
+
+    /**
+     * 按类型标识获取序列化器
+     * @param tag
+     * @return 未注册时返回null
+     */
+    public static CacheSerializer getByTag(byte tag) {
+        return tagArray[tag & 0xFF];
+    }
+
+    /**
+     * 设置全局默认序列化器
+     * @param name 名称或类全名
+     */
+    public static void setDefault(String name) {
+        if (!StringUtils.isEmpty(name)) {
+            defaultSerializer = get(name.trim());
+        }
+    }
+
+    public static CacheSerializer getDefault() {
+        return defaultSerializer;
+    }
+}
@@ -0,0 +1,34 @@
+package cn.soilove.cache.serializer;
+
+import com.alibaba.fastjson.JSON;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * fastjson序列化，未开启元数据和压缩时与旧版本的json格式一致
+ **/
+public class FastjsonCacheSerializer implements CacheSerializer {
+
+    public static final byte TAG = 1;
+
+    @Override
+    public byte getTag() {
+        return TAG;
+    }
+
+    @Override
+    public String getName() {
+        return CacheSerializers.FASTJSON;
+    }
+
+    @Override
+    public byte[] serialize(Object value, Type type) {
+        return JSON.toJSONBytes(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, int offset, int length, Type type) {
+        return JSON.parseObject(bytes, offset, length, StandardCharsets.UTF_8.newDecoder(), type);
+    }
+}
@@ -1,8 +1,14 @@
 package cn.soilove.cache.service;
 
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyLockOptions;
+import cn.soilove.cache.model.LockHandle;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.model.RedisScript;
 import redis.clients.jedis.*;
 import redis.clients.jedis.params.GeoRadiusParam;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +61,14 @@ public interface RedisService {
      */
     void set(String key, String value, int seconds);
 
+    /**
+     * 新增 value为byte[]类型 seconds 有效期（单位：s）--正数
+     * @param key
+     * @param value
+     * @param seconds
+     */
+    void set(byte[] key, byte[] value, int seconds);
+
     /**
      * 新增 value为String类型 seconds 有效期（单位：s）--正数
      * @param key
@@ -70,6 +84,42 @@ public interface RedisService {
      */
     String get(String key);
 
+    /**
+     * 获取key的byte[]值
+     * @param key
+     * @return
+     */
+    byte[] get(byte[] key);
+
+    /**
+     * 新增 value为byte[]类型
+     * @param key
+     * @param value
+     */
+    void set(byte[] key, byte[] value);
+
+    /**
+     * 新增 value为ByteBuffer剩余内容 seconds 有效期（单位：s）--正数
+     * @param key
+     * @param value
+     * @param seconds
+     */
+    void set(byte[] key, ByteBuffer value, int seconds);
+
+    /**
+     * 获取多个key的byte[]值
+     * @param keys
+     * @return
+     */
+    List<byte[]> mget(byte[]... keys);
+
+    /**
+     * 删除key
+     * @param key
+     * @return
+     */
+    Long del(byte[] key);
+
     /**
      * 获取多个key值
      * @param keys
@@ -77,6 +127,19 @@ public interface RedisService {
      */
     List<String> mget(String... keys);
 
+    /**
+     * 批量设置key值
+     * @param map key -> value
+     */
+    void mset(Map<String, String> map);
+
+    /**
+     * 批量设置key值和有效期
+     * @param map key -> value
+     * @param seconds 有效期（单位：s）
+     */
+    void msetex(Map<String, String> map, int seconds);
+
     /**
      * 正则批量获取key
      * @param index
@@ -113,6 +176,20 @@ public interface RedisService {
      */
     Long del(String key);
 
+    /**
+     * 删除多个key
+     * @param keys
+     * @return 删除的key数量
+     */
+    Long del(String... keys);
+
+    /**
+     * 异步删除多个key，由redis后台线程释放内存
+     * @param keys
+     * @return 删除的key数量
+     */
+    Long unlink(String... keys);
+
     /**
      * key值自增1
      * @param key
@@ -213,6 +290,60 @@ public interface RedisService {
      */
     Map<String, String> hgetAll(String key);
 
+    /**
+     * hash类型设置 value为byte[]类型
+     * @param key
+     * @param field
+     * @param value
+     */
+    void hset(byte[] key, byte[] field, byte[] value);
+
+    /**
+     * hash类型设置 value为ByteBuffer剩余内容
+     * @param key
+     * @param field
+     * @param value
+     */
+    void hset(byte[] key, byte[] field, ByteBuffer value);
+
+    /**
+     * hash类型获取byte[]值
+     * @param key
+     * @param field
+     * @return
+     */
+    byte[] hget(byte[] key, byte[] field);
+
+    /**
+     * hash类型删除
+     * @param key
+     * @param field
+     * @return
+     */
+    Long hdel(byte[] key, byte[] field);
+
+    /**
+     * hash类型批量设置
+     * @param key
+     * @param map
+     */
+    void hmset(byte[] key, Map<byte[], byte[]> map);
+
+    /**
+     * hash类型批量获取
+     * @param key
+     * @param fields
+     * @return
+     */
+    List<byte[]> hmget(byte[] key, byte[]... fields);
+
+    /**
+     * hash类型获取全部
+     * @param key
+     * @return
+     */
+    Map<byte[], byte[]> hgetAll(byte[] key);
+
     /**
      * 添加有序集合元素
      * @param key
@@ -275,6 +406,68 @@ public interface RedisService {
      */
     Long zrem(String key, String ... members);
 
+    /**
+     * 有序集合添加 member为byte[]类型
+     * @param key
+     * @param score
+     * @param member
+     * @return
+     */
+    Long zadd(byte[] key, double score, byte[] member);
+
+    /**
+     * 有序集合增加分数
+     * @param key
+     * @param incr
+     * @param member
+     * @return
+     */
+    Double zincrby(byte[] key, double incr, byte[] member);
+
+    /**
+     * 有序集合按下标范围获取，分数从小到大
+     * @param key
+     * @param start
+     * @param stop
+     * @return
+     */
+    Set<byte[]> zrange(byte[] key, long start, long stop);
+
+    /**
+     * 有序集合按分数范围获取，分数从小到大
+     * @param key
+     * @param min
+     * @param max
+     * @return
+     */
+    Set<byte[]> zrangeByScore(byte[] key, double min, double max);
+
+    /**
+     * 有序集合按下标范围获取，分数从大到小
+     * @param key
+     * @param start
+     * @param stop
+     * @return
+     */
+    Set<byte[]> zrevrange(byte[] key, long start, long stop);
+
+    /**
+     * 有序集合按分数范围获取，分数从大到小，参数与String重载一致
+     * @param key
+     * @param min
+     * @param max
+     * @return
+     */
+    Set<byte[]> zrevrangeByScore(byte[] key, double min, double max);
+
+    /**
+     * 有序集合删除
+     * @param key
+     * @param members
+     * @return
+     */
+    Long zrem(byte[] key, byte[]... members);
+
     /**
      * 查询有序集合成员数量
      * @param key
@@ -438,6 +631,51 @@ public interface RedisService {
      */
     List<String> blpop(String key, int seconds);
 
+    /**
+     * 列表头部添加 value为byte[]类型
+     * @param key
+     * @param values
+     */
+    void lpush(byte[] key, byte[]... values);
+
+    /**
+     * 列表尾部添加 value为byte[]类型
+     * @param key
+     * @param values
+     */
+    void rpush(byte[] key, byte[]... values);
+
+    /**
+     * 列表按下标范围获取
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    List<byte[]> lrange(byte[] key, long start, long end);
+
+    /**
+     * 列表按下标获取
+     * @param key
+     * @param index
+     * @return
+     */
+    byte[] lindex(byte[] key, long index);
+
+    /**
+     * 列表头部弹出
+     * @param key
+     * @return
+     */
+    byte[] lpop(byte[] key);
+
+    /**
+     * 列表尾部弹出
+     * @param key
+     * @return
+     */
+    byte[] rpop(byte[] key);
+
     /**
      * 设置key的过期时间
      * @param key
@@ -462,14 +700,98 @@ public interface RedisService {
      */
     boolean lockSpin(String key, int seconds, int waitSeconds);
 
+    /**
+     * 分布式锁-锁定，返回值:true-获取锁成功/false-获取锁失败
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param watchdog 是否自动续期：持有期间每过租约的1/3续期一次，直到解锁，进程退出后锁在租约到期后释放
+     * @return
+     */
+    boolean lock(String key, int seconds, boolean watchdog);
+
+    /**
+     * 分布式自旋锁
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param waitSeconds 申请锁超时时间秒数
+     * @param watchdog 是否自动续期
+     * @return
+     */
+    boolean lockSpin(String key, int seconds, int waitSeconds, boolean watchdog);
+
+    /**
+     * 分布式锁-按参数锁定，返回值:true-获取锁成功/false-获取锁失败
+     * <pre>
+     *     开启可重入时，已持有锁的线程再次加锁直接成功(仅增加本地持有次数，不访问redis)，
+     *     解锁次数与加锁次数一致时释放redis锁
+     * </pre>
+     * @param key
+     * @param options 锁参数
+     * @return
+     */
+    boolean lock(String key, EasyLockOptions options);
+
+    /**
+     * 分布式锁-锁定并返回持有凭证
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param watchdog 是否自动续期
+     * @return 获取锁失败时为空
+     */
+    LockHandle tryLock(String key, int seconds, boolean watchdog);
+
+    /**
+     * 分布式自旋锁-锁定并返回持有凭证
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param waitSeconds 申请锁超时时间秒数
+     * @param watchdog 是否自动续期
+     * @return 获取锁失败时为空
+     */
+    LockHandle tryLockSpin(String key, int seconds, int waitSeconds, boolean watchdog);
+
+    /**
+     * 分布式锁-按参数锁定并返回持有凭证
+     * @param key
+     * @param options 锁参数
+     * @return 获取锁失败时为空
+     */
+    LockHandle tryLock(String key, EasyLockOptions options);
 
     /**
      * 分布式锁-解锁，返回值:true-解除锁成功/false-解除锁失败
+     * <pre>
+     *     按本节点记录的持有者令牌比较删除，任意线程均可解锁；持有线程按重入次数解锁，其他线程解锁时直接释放；
+     *     本节点未持有(如其他节点加的锁)或锁已过期并被他人持有时返回false且不删除锁，需要无条件删除时使用forceUnLock
+     * </pre>
      * @param key
      * @return
      */
     boolean unLock(String key);
 
+    /**
+     * 分布式锁-按持有者令牌解锁，令牌一致时删除，返回值:true-解除锁成功/false-锁已过期或不属于该令牌
+     * @param key
+     * @param token 持有者令牌，见LockHandle.getToken
+     * @return
+     */
+    boolean unLock(String key, String token);
+
+    /**
+     * 分布式锁-强制解锁，不校验持有者直接删除锁，返回值:true-锁存在并已删除/false-锁不存在
+     * @param key
+     * @return
+     */
+    boolean forceUnLock(String key);
+
+    /**
+     * 分布式锁-是否由该令牌持有
+     * @param key
+     * @param token 持有者令牌
+     * @return
+     */
+    boolean isLockOwner(String key, String token);
+
     /**
      * 使用 Lua 解释器执行脚本
      * @param script
@@ -495,6 +817,22 @@ public interface RedisService {
      */
     Object eval(String script,List<String> keys, List<String> args);
 
+    /**
+     * 按SHA1执行lua脚本(EVALSHA)，redis未缓存脚本时SCRIPT LOAD后重试
+     * @param script 脚本
+     * @param key 脚本中的KEYS[1]
+     * @param args 脚本中的ARGV
+     * @return
+     */
+    Object evalsha(RedisScript script, String key, String... args);
+
+    /**
+     * 加载lua脚本(SCRIPT LOAD)，集群模式加载到全部节点
+     * @param script
+     * @return 脚本SHA1
+     */
+    String scriptLoad(String script);
+
     /**
      * 设置或清除指定偏移量上的位(bit)
      * @param key
@@ -527,6 +865,13 @@ public interface RedisService {
      */
     Pipeline getPipeline();
 
+    /**
+     * 批量执行命令，单点和主从模式使用一个管道，集群模式按节点分组并行发送管道
+     * @param batch 批量命令
+     * @return 按命令添加顺序的结果，执行失败的命令对应位置为异常对象
+     */
+    List<Object> executeBatch(RedisBatch batch);
+
     /**
      * 添加元素和经纬度
      * @param key
@@ -722,6 +1067,37 @@ public interface RedisService {
      */
     <R> List<R> easyCache4Array(String key, int seconds,int nullSeconds,Class<R> classz, Supplier<R> supplier);
 
+    /**
+     * 简易-缓存，支持防击穿加载等参数
+     * @param key
+     * @param options
+     * @param supplier
+     * @return
+     */
+    String easyCache(String key, EasyCacheOptions options, Supplier<String> supplier);
+
+    /**
+     * 简易-缓存对象，支持防击穿加载等参数
+     * @param key
+     * @param options
+     * @param classz
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    <R> R easyCache(String key, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier);
+
+    /**
+     * 简易-缓存集合，支持防击穿加载等参数
+     * @param key
+     * @param options
+     * @param classz
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    <R> List<R> easyCache4Array(String key, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier);
+
     /**
      * 简易-锁
      * @param key
@@ -742,6 +1118,39 @@ public interface RedisService {
      */
     <T> T easySpinLock(String key, int seconds, int applytimeout, Supplier<T> supplier);
 
+    /**
+     * 简易-锁
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param watchdog 是否自动续期
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    <T> T easyLock(String key, int seconds, boolean watchdog, Supplier<T> supplier);
+
+    /**
+     * 简易-自旋锁
+     * @param key
+     * @param seconds 持有锁超时秒数，开启续期时为租约秒数
+     * @param applytimeout
+     * @param watchdog 是否自动续期
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    <T> T easySpinLock(String key, int seconds, int applytimeout, boolean watchdog, Supplier<T> supplier);
+
+    /**
+     * 简易-按参数加锁
+     * @param key
+     * @param options 锁参数
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    <T> T easyLock(String key, EasyLockOptions options, Supplier<T> supplier);
+
     /**
      * 简易-幂等控制
      * @param key
@@ -0,0 +1,91 @@
+package cn.soilove.cache.service.handler;
+
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.service.support.NearCacheInvalidator;
+import cn.soilove.cache.utils.CaffeineCacheUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 多级缓存：一级为本节点caffeine缓存，二级为redis缓存
+ * 一级缓存的key与redis缓存key相同，redis缓存删除时通知所有节点移除一级缓存
+ * 一级缓存加载期间收到删除通知时，加载结果仅返回调用方，不写入一级缓存
+ **/
+@Component
+public class MultiLevelCacheHandler {
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    /**
+     * 获取缓存、无则设值 - 字符串
+     * @param namespace 本地缓存命名空间
+     * @param key redis缓存key
+     * @param localSeconds 本地缓存时间 - 单位:秒
+     * @param options redis缓存参数
+     * @param supplier
+     * @return
+     */
+    public String get(String namespace, String key, long localSeconds, EasyCacheOptions options, Supplier<String> supplier){
+        nearCacheInvalidator.register(namespace);
+        return CaffeineCacheUtils.get(namespace, key, localSeconds, () -> redisService.easyCache(key, options, supplier));
+    }
+
+    /**
+     * 获取缓存、无则设值 - 对象
+     * @param namespace 本地缓存命名空间
+     * @param key redis缓存key
+     * @param localSeconds 本地缓存时间 - 单位:秒
+     * @param options redis缓存参数
+     * @param classz
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    public <R> R get(String namespace, String key, long localSeconds, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier){
+        nearCacheInvalidator.register(namespace);
+        return CaffeineCacheUtils.get(namespace, key, localSeconds, () -> redisService.easyCache(key, options, classz, supplier));
+    }
+
+    /**
+     * 获取缓存、无则设值 - 集合
+     * @param namespace 本地缓存命名空间
+     * @param key redis缓存key
+     * @param localSeconds 本地缓存时间 - 单位:秒
+     * @param options redis缓存参数
+     * @param classz
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    public <R> List<R> getArray(String namespace, String key, long localSeconds, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier){
+        nearCacheInvalidator.register(namespace);
+        return CaffeineCacheUtils.get(namespace, key, localSeconds, () -> redisService.easyCache4Array(key, options, classz, supplier));
+    }
+
+    /**
+     * 删除缓存：删除redis缓存，清理本节点一级缓存，开启广播时通知其他节点
+     * @param key redis缓存key
+     */
+    public void del(String key){
+        redisService.del(key);
+        // 自定义RedisService实现时，确保本节点一级缓存被清理
+        nearCacheInvalidator.invalidateLocal(Collections.singletonList(key));
+    }
+
+    /**
+     * 仅清理本节点一级缓存
+     * @param key redis缓存key
+     */
+    public void invalidateLocal(String key){
+        nearCacheInvalidator.invalidateLocal(Collections.singletonList(key));
+    }
+}
@@ -1,6 +1,7 @@
 package cn.soilove.cache.service.handler;
 
 import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.RedisBatch;
 import cn.soilove.cache.model.RedisBloomFilterConfig;
 import cn.soilove.cache.service.RedisService;
 import cn.soilove.cache.utils.CacheStarterCode;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -80,9 +82,13 @@ public class RedisBloomFilter {
 
         // 命名空间key
         key = RedisKeysEnum.REDIS_BF_NAMESPACE.parseKey(key);
+
+        // 批量设置，一次网络往返
+        RedisBatch batch = new RedisBatch();
         for (long i : offset) {
-            redisService.setbit(key, i, true);
+            batch.setbit(key, i, true);
         }
+        RedisBatch.checkResults(redisService.executeBatch(batch));
     }
 
     /**
@@ -97,9 +103,13 @@ public class RedisBloomFilter {
         // 命名空间key
         key = RedisKeysEnum.REDIS_BF_NAMESPACE.parseKey(key);
 
+        // 批量读取，一次网络往返
+        RedisBatch batch = new RedisBatch();
         for (long index : offset) {
-            boolean res = redisService.getbit(key, index);
-            if(!res){
+            batch.getbit(key, index);
+        }
+        for (Object res : RedisBatch.checkResults(redisService.executeBatch(batch))) {
+            if(!Boolean.TRUE.equals(res)){
                 return false;
             }
         }
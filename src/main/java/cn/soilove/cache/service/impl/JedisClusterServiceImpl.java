@@ -1,22 +1,48 @@
 package cn.soilove.cache.service.impl;
 
 import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyLockOptions;
+import cn.soilove.cache.model.LockHandle;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.model.RedisScript;
 import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.service.support.EasyCacheLoader;
+import cn.soilove.cache.service.support.EasyCacheRefresher;
+import cn.soilove.cache.service.support.LocalLockCoalescer;
+import cn.soilove.cache.service.support.LockNotifier;
+import cn.soilove.cache.service.support.LockWatchdog;
+import cn.soilove.cache.service.support.NearCacheInvalidator;
+import cn.soilove.cache.service.support.RedisBatchExecutor;
+import cn.soilove.cache.utils.ByteBufferUtils;
 import cn.soilove.cache.utils.CacheStarterCode;
 import cn.soilove.cache.utils.ExceptionStringUtils;
-import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.util.ParameterizedTypeImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 import redis.clients.jedis.params.GeoRadiusParam;
 import redis.clients.jedis.params.SetParams;
-
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -31,6 +57,24 @@ public class JedisClusterServiceImpl implements RedisService {
     @Autowired
     private JedisCluster jedis;
 
+    @Autowired(required = false)
+    private EasyCacheRefresher easyCacheRefresher;
+
+    @Autowired(required = false)
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    @Autowired(required = false)
+    private LockNotifier lockNotifier;
+
+    @Autowired(required = false)
+    private LocalLockCoalescer lockCoalescer;
+
+    @Autowired(required = false)
+    private LockWatchdog lockWatchdog;
+
+    @Autowired(required = false)
+    private RedisBatchExecutor redisBatchExecutor;
+
     private <R> R doCommand(Function<JedisCluster,R> function){
         try{
             return function.apply(jedis);
@@ -60,6 +104,11 @@ public class JedisClusterServiceImpl implements RedisService {
         doCommand(jedis -> jedis.setex(key, seconds, value));
     }
 
+    @Override
+    public void set(byte[] key, byte[] value, int seconds) {
+        doCommand(jedis -> jedis.setex(key, seconds, value));
+    }
+
     @Override
     public boolean setnx(String key, String value, int seconds) {
         return doCommand(jedis -> {
@@ -83,9 +132,129 @@ public class JedisClusterServiceImpl implements RedisService {
         return doCommand(jedis -> key == null ? null : jedis.get(key));
     }
 
+    @Override
+    public byte[] get(byte[] key) {
+        return doCommand(jedis -> key == null ? null : jedis.get(key));
+    }
+
+    @Override
+    public void set(byte[] key, byte[] value) {
+        doCommand(jedis -> jedis.set(key, value));
+    }
+
+    @Override
+    public void set(byte[] key, ByteBuffer value, int seconds) {
+        doCommand(jedis -> jedis.setex(key, seconds, ByteBufferUtils.toBytes(value)));
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        if(keys == null || keys.length == 0){
+            return Collections.emptyList();
+        }
+        // 按slot分组
+        Map<Integer, List<Integer>> slotIndexes = new LinkedHashMap<>();
+        for(int i = 0; i < keys.length; i++){
+            slotIndexes.computeIfAbsent(JedisClusterCRC16.getSlot(keys[i]), k -> new ArrayList<>()).add(i);
+        }
+        // 同一slot直接执行
+        if(slotIndexes.size() == 1){
+            return doCommand(jedis -> jedis.mget(keys));
+        }
+        // 每个slot一条mget命令，按节点并行发送
+        RedisBatch batch = new RedisBatch();
+        for(List<Integer> indexes : slotIndexes.values()){
+            byte[][] args = new byte[indexes.size() - 1][];
+            for(int i = 1; i < indexes.size(); i++){
+                args[i - 1] = keys[indexes.get(i)];
+            }
+            batch.command(keys[indexes.get(0)], Protocol.Command.MGET, BuilderFactory.BYTE_ARRAY_LIST, args);
+        }
+        List<Object> results = RedisBatch.checkResults(executeBatch(batch));
+
+        // 按输入顺序合并
+        byte[][] values = new byte[keys.length][];
+        int index = 0;
+        for(List<Integer> indexes : slotIndexes.values()){
+            List<?> slotValues = (List<?>) results.get(index++);
+            for(int i = 0; i < indexes.size(); i++){
+                values[indexes.get(i)] = (byte[]) slotValues.get(i);
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    @Override
+    public Long del(byte[] key) {
+        if(key == null){
+            return null;
+        }
+        Long res = doCommand(jedis -> jedis.del(key));
+        broadcastInvalidation(new String(key, StandardCharsets.UTF_8));
+        return res;
+    }
+
     @Override
     public List<String> mget(String... keys) {
-        return doCommand(jedis -> jedis.mget(keys));
+        if(keys == null || keys.length == 0){
+            return Collections.emptyList();
+        }
+        Map<Integer, List<String>> slotKeys = groupBySlot(Arrays.asList(keys));
+        // 同一slot直接执行
+        if(slotKeys.size() == 1){
+            return doCommand(jedis -> jedis.mget(keys));
+        }
+        // 按slot分组，每个slot一条mget命令，按节点并行发送
+        RedisBatch batch = new RedisBatch();
+        for(List<String> slotKey : slotKeys.values()){
+            batch.command(slotKey.get(0), Protocol.Command.MGET, BuilderFactory.STRING_LIST, slotKey.subList(1, slotKey.size()).toArray(new String[0]));
+        }
+        List<Object> results = RedisBatch.checkResults(executeBatch(batch));
+
+        // 按输入顺序合并
+        Map<String, String> values = new HashMap<>(keys.length * 4 / 3 + 1);
+        int index = 0;
+        for(List<String> slotKey : slotKeys.values()){
+            List<?> slotValues = (List<?>) results.get(index++);
+            for(int i = 0; i < slotKey.size(); i++){
+                values.put(slotKey.get(i), (String) slotValues.get(i));
+            }
+        }
+        List<String> res = new ArrayList<>(keys.length);
+        for(String key : keys){
+            res.add(values.get(key));
+        }
+        return res;
+    }
+
+    @Override
+    public void mset(Map<String, String> map) {
+        if(map == null || map.isEmpty()){
+            return;
+        }
+        // 按slot分组，每个slot一条mset命令
+        Map<Integer, List<String>> slotKeys = groupBySlot(map.keySet());
+        RedisBatch batch = new RedisBatch();
+        for(List<String> keys : slotKeys.values()){
+            String[] args = new String[keys.size() * 2 - 1];
+            args[0] = map.get(keys.get(0));
+            for(int i = 1; i < keys.size(); i++){
+                args[i * 2 - 1] = keys.get(i);
+                args[i * 2] = map.get(keys.get(i));
+            }
+            batch.command(keys.get(0), Protocol.Command.MSET, BuilderFactory.STRING, args);
+        }
+        RedisBatch.checkResults(executeBatch(batch));
+    }
+
+    @Override
+    public void msetex(Map<String, String> map, int seconds) {
+        if(map == null || map.isEmpty()){
+            return;
+        }
+        RedisBatch batch = new RedisBatch();
+        map.forEach((key,value) -> batch.set(key,value,seconds));
+        RedisBatch.checkResults(executeBatch(batch));
     }
 
     @Override
@@ -122,7 +291,23 @@ public class JedisClusterServiceImpl implements RedisService {
 
     @Override
     public Long del(String key) {
-        return doCommand(jedis -> key == null ? null : jedis.del(key));
+        Long res = doCommand(jedis -> key == null ? null : jedis.del(key));
+        broadcastInvalidation(key);
+        return res;
+    }
+
+    @Override
+    public Long del(String... keys) {
+        Long res = multiKeyCount(Protocol.Command.DEL, keys);
+        broadcastInvalidation(keys);
+        return res;
+    }
+
+    @Override
+    public Long unlink(String... keys) {
+        Long res = multiKeyCount(Protocol.Command.UNLINK, keys);
+        broadcastInvalidation(keys);
+        return res;
     }
 
     @Override
@@ -194,6 +379,41 @@ public class JedisClusterServiceImpl implements RedisService {
         return doCommand(jedis -> key == null ? null : jedis.hgetAll(key));
     }
 
+    @Override
+    public void hset(byte[] key, byte[] field, byte[] value) {
+        doCommand(jedis -> jedis.hset(key, field, value));
+    }
+
+    @Override
+    public void hset(byte[] key, byte[] field, ByteBuffer value) {
+        doCommand(jedis -> jedis.hset(key, field, ByteBufferUtils.toBytes(value)));
+    }
+
+    @Override
+    public byte[] hget(byte[] key, byte[] field) {
+        return doCommand(jedis -> key == null ? null : jedis.hget(key, field));
+    }
+
+    @Override
+    public Long hdel(byte[] key, byte[] field) {
+        return doCommand(jedis -> key == null ? null : jedis.hdel(key, field));
+    }
+
+    @Override
+    public void hmset(byte[] key, Map<byte[], byte[]> map) {
+        doCommand(jedis -> jedis.hmset(key, map));
+    }
+
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        return doCommand(jedis -> jedis.hmget(key, fields));
+    }
+
+    @Override
+    public Map<byte[], byte[]> hgetAll(byte[] key) {
+        return doCommand(jedis -> key == null ? null : jedis.hgetAll(key));
+    }
+
     @Override
     public Long zadd(String key,double score,String member){
         return doCommand(jedis -> key == null ? null : jedis.zadd(key,score,member));
@@ -229,6 +449,41 @@ public class JedisClusterServiceImpl implements RedisService {
         return doCommand(jedis -> key == null ? null : jedis.zrem(key,members));
     }
 
+    @Override
+    public Long zadd(byte[] key, double score, byte[] member){
+        return doCommand(jedis -> jedis.zadd(key, score, member));
+    }
+
+    @Override
+    public Double zincrby(byte[] key, double incr, byte[] member){
+        return doCommand(jedis -> jedis.zincrby(key, incr, member));
+    }
+
+    @Override
+    public Set<byte[]> zrange(byte[] key, long start, long stop){
+        return doCommand(jedis -> jedis.zrange(key, start, stop));
+    }
+
+    @Override
+    public Set<byte[]> zrangeByScore(byte[] key, double min, double max){
+        return doCommand(jedis -> jedis.zrangeByScore(key, min, max));
+    }
+
+    @Override
+    public Set<byte[]> zrevrange(byte[] key, long start, long stop){
+        return doCommand(jedis -> jedis.zrevrange(key, start, stop));
+    }
+
+    @Override
+    public Set<byte[]> zrevrangeByScore(byte[] key, double min, double max){
+        return doCommand(jedis -> jedis.zrevrangeByScore(key, min, max));
+    }
+
+    @Override
+    public Long zrem(byte[] key, byte[]... members){
+        return doCommand(jedis -> key == null ? null : jedis.zrem(key, members));
+    }
+
     @Override
     public Long zcount(String key,  double min, double max){
         return doCommand(jedis -> key == null ? null : jedis.zcount(key,min,max));
@@ -336,6 +591,36 @@ public class JedisClusterServiceImpl implements RedisService {
         return doCommand(jedis -> jedis.blpop(seconds, key));
     }
 
+    @Override
+    public void lpush(byte[] key, byte[]... values) {
+        doCommand(jedis -> jedis.lpush(key, values));
+    }
+
+    @Override
+    public void rpush(byte[] key, byte[]... values) {
+        doCommand(jedis -> jedis.rpush(key, values));
+    }
+
+    @Override
+    public List<byte[]> lrange(byte[] key, long start, long end) {
+        return doCommand(jedis -> jedis.lrange(key, start, end));
+    }
+
+    @Override
+    public byte[] lindex(byte[] key, long index) {
+        return doCommand(jedis -> key == null ? null : jedis.lindex(key, index));
+    }
+
+    @Override
+    public byte[] lpop(byte[] key) {
+        return doCommand(jedis -> key == null ? null : jedis.lpop(key));
+    }
+
+    @Override
+    public byte[] rpop(byte[] key) {
+        return doCommand(jedis -> key == null ? null : jedis.rpop(key));
+    }
+
     @Override
     public void expire(String key, int seconds) {
         doCommand(jedis -> jedis.expire(key, seconds));
@@ -343,48 +628,116 @@ public class JedisClusterServiceImpl implements RedisService {
 
     @Override
     public boolean lock(String key, int seconds) {
-        key = LOCK_KEY_PREFIX + key;
-        String finalKey = key;
-        return doCommand(jedis -> {
-            // 判断锁是否能加锁，成功设置表示加锁成功，利用set nx效果，如果存在相同值则返回失败的特性
-            SetParams setParams = new SetParams();
-            // key存在不做处理
-            setParams.nx();
-            // 设置失效时间
-            setParams.ex(seconds);
-            String result = jedis.set(finalKey, "1",setParams);
-            return "OK".equals(result);
-        });
+        return lock(key, seconds, false);
     }
 
     @Override
-    public boolean lockSpin(String key,int seconds, int applytimeout) {
-        try {
-            key = LOCK_KEY_PREFIX + key;
-            long startTime = System.currentTimeMillis();
-            long waitInMilliSeconds = ((long) applytimeout) * 1000;
-            // 不断轮询锁，直到超时
-            while (System.currentTimeMillis() - startTime < waitInMilliSeconds) {
-                // 判断锁是否能加锁，成功设置表示加锁成功，利用set nx效果，如果存在相同值则返回失败的特性
-                boolean res = setnx(key,"1",seconds);
-                if(res){
-                    return true;
-                }
-                // 轮训间隔10毫秒
-                Thread.sleep(10);
+    public boolean lock(String key, int seconds, boolean watchdog) {
+        return lock(key, EasyLockOptions.of(seconds).watchdog(watchdog));
+    }
+
+    @Override
+    public boolean lockSpin(String key, int seconds, int applytimeout) {
+        return lockSpin(key, seconds, applytimeout, false);
+    }
+
+    @Override
+    public boolean lockSpin(String key, int seconds, int applytimeout, boolean watchdog) {
+        return lock(key, EasyLockOptions.of(seconds).spin(applytimeout).watchdog(watchdog));
+    }
+
+    @Override
+    public boolean lock(String key, EasyLockOptions options) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        lockWatchdog().checkLease(((long) options.getSeconds()) * 1000, options.isWatchdog());
+        // 可重入：当前线程已持有且未过期，仅增加本地持有次数
+        if(options.isReentrant() && lockWatchdog().reenter(lockKey)){
+            return true;
+        }
+        if(options.getWaitSeconds() <= 0){
+            try {
+                // 同一节点同一个锁只有一个线程竞争redis锁
+                return lockCoalescer().lock(lockKey, 0, redisLock(lockKey, options));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
-            return false;
+        }
+        try {
+            // 同一节点同一个锁只有一个线程竞争redis锁，其余线程本地排队
+            return lockCoalescer().lock(lockKey, ((long) options.getWaitSeconds()) * 1000, redisLock(lockKey, options));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("redis 分布式等待锁-等待被中断，key:" + lockKey);
+            throw new CacheStarterException("redis 分布式等待锁-等待被中断，key:" + lockKey);
         } catch (Exception e) {
-            log.error("redis 分布式等待锁-加锁异常，key:" + key + "，异常信息：", e);
-            throw new CacheStarterException("redis 分布式等待锁-加锁异常，key:" + key);
+            log.error("redis 分布式等待锁-加锁异常，key:" + lockKey + "，异常信息：", e);
+            throw new CacheStarterException("redis 分布式等待锁-加锁异常，key:" + lockKey);
         }
     }
 
+    @Override
+    public LockHandle tryLock(String key, int seconds, boolean watchdog) {
+        return tryLock(key, EasyLockOptions.of(seconds).watchdog(watchdog));
+    }
+
+    @Override
+    public LockHandle tryLockSpin(String key, int seconds, int waitSeconds, boolean watchdog) {
+        return tryLock(key, EasyLockOptions.of(seconds).spin(waitSeconds).watchdog(watchdog));
+    }
+
+    @Override
+    public LockHandle tryLock(String key, EasyLockOptions options) {
+        return lock(key, options) ? new LockHandle(key, lockWatchdog().token(LOCK_KEY_PREFIX + key), this) : null;
+    }
+
     @Override
     public boolean unLock(String key) {
-        key = LOCK_KEY_PREFIX + key;
-        String finalKey = key;
-        return del(finalKey) > 0;
+        String lockKey = LOCK_KEY_PREFIX + key;
+        // 可重入：当前线程仍重入持有，仅减少本地持有次数
+        if(lockWatchdog().exit(lockKey)){
+            return true;
+        }
+        // 其他线程解锁时接管本节点持有的锁
+        lockWatchdog().adopt(lockKey);
+        lockCoalescer().adopt(lockKey);
+        // 本地有排队线程时移交redis锁，否则令牌一致时删除
+        return lockCoalescer().unlock(lockKey, redisLock(lockKey, EasyLockOptions.of(0)));
+    }
+
+    @Override
+    public boolean unLock(String key, String token) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        // 本节点持有，按本地合并释放
+        if(token != null && token.equals(lockWatchdog().token(lockKey))){
+            return unLock(key);
+        }
+        // 令牌来自其他节点或服务，令牌一致时删除
+        boolean res = token != null && Long.valueOf(1).equals(evalsha(LockWatchdog.RELEASE_SCRIPT, lockKey, token));
+        if(res){
+            lockNotifier().signal(this, lockKey);
+        }
+        return res;
+    }
+
+    @Override
+    public boolean forceUnLock(String key) {
+        String lockKey = LOCK_KEY_PREFIX + key;
+        // 不校验持有者，直接删除
+        lockWatchdog().forceRelease(lockKey);
+        lockCoalescer().forceUnlock(lockKey);
+        // 锁key不在本地缓存中，直接删除，不广播失效
+        boolean res = doCommand(jedis -> jedis.del(lockKey)) > 0;
+        if(res){
+            lockNotifier().signal(this, lockKey);
+        }
+        return res;
+    }
+
+    @Override
+    public boolean isLockOwner(String key, String token) {
+        // 可重入锁在redis中为hash，按类型判断
+        return token != null && Long.valueOf(1).equals(evalsha(LockWatchdog.OWNER_SCRIPT, LOCK_KEY_PREFIX + key, token));
     }
 
     @Override
@@ -402,6 +755,36 @@ public class JedisClusterServiceImpl implements RedisService {
         return doCommand(jedis -> jedis.eval(script,keys,args));
     }
 
+    @Override
+    public Object evalsha(RedisScript script, String key, String... args){
+        String[] params = new String[args.length + 1];
+        params[0] = key;
+        System.arraycopy(args, 0, params, 1, args.length);
+        return doCommand(jedis -> {
+            try {
+                return jedis.evalsha(script.getSha1(), 1, params);
+            } catch (JedisNoScriptException e) {
+                // redis未缓存脚本(重启或SCRIPT FLUSH)，加载后重试
+                jedis.scriptLoad(script.getScript(), key);
+                return jedis.evalsha(script.getSha1(), 1, params);
+            }
+        });
+    }
+
+    @Override
+    public String scriptLoad(String script){
+        return doCommand(jedis -> {
+            // 脚本缓存在各节点独立，逐个节点加载
+            String sha1 = null;
+            for(JedisPool pool : jedis.getClusterNodes().values()){
+                try (Jedis node = pool.getResource()) {
+                    sha1 = node.scriptLoad(script);
+                }
+            }
+            return sha1;
+        });
+    }
+
     @Override
     public Boolean setbit(String key, long offset, boolean value){
         return doCommand(jedis -> key == null ? null : jedis.setbit(key,offset,value));
@@ -423,6 +806,28 @@ public class JedisClusterServiceImpl implements RedisService {
         throw new CacheStarterException(CacheStarterCode.ERROR.getCode(),"Cluster模式不支持Pipeline");
     }
 
+    @Override
+    public List<Object> executeBatch(RedisBatch batch) {
+        if(batch.isEmpty()){
+            return Collections.emptyList();
+        }
+        return doCommand(jedis -> {
+            // 未注入执行器时逐条执行
+            if(redisBatchExecutor == null){
+                List<Object> results = new ArrayList<>(batch.size());
+                for(RedisBatch.Command command : batch.getCommands()){
+                    try {
+                        results.add(command.build(jedis.sendCommand(command.getKey(),command.getCommand(),command.getArgs())));
+                    } catch (JedisDataException e) {
+                        results.add(e);
+                    }
+                }
+                return results;
+            }
+            return redisBatchExecutor.execute(jedis,batch);
+        });
+    }
+
     @Override
     public Long geoadd(String key, double longitude, double latitude, String member){
         return doCommand(jedis -> jedis.geoadd(key,longitude,latitude,member));
@@ -507,46 +912,48 @@ public class JedisClusterServiceImpl implements RedisService {
 
     @Override
     public String easyCache(String key, int seconds, int nullSeconds, Supplier<String> supplier){
-        // 优先读取缓存
-        String res = get(key);
-        if(!StringUtils.isEmpty(res)){
-            // 判断是否为空值
-            if(NULL_VALUE.equals(res)){
-                return null;
-            }
-            return res;
-        }
-
-        // 执行查询
-        res = supplier.get();
-        // 空值处理
-        if(StringUtils.isEmpty(res)){
-            set(key,NULL_VALUE,nullSeconds);
-            return null;
-        }
-        // 有值设置
-        set(key,res,seconds);
-        return res;
+        return easyCache(key, EasyCacheOptions.of(seconds, nullSeconds), supplier);
     }
 
     @Override
     public <R> R easyCache(String key, int seconds,int nullSeconds,Class<R> classz, Supplier<R> supplier){
-        String res = queryEasyCacheJsonStr(key, seconds, nullSeconds, supplier);
-        if (StringUtils.isEmpty(res)) return null;
-        return JSON.parseObject(res, classz);
+        return easyCache(key, EasyCacheOptions.of(seconds, nullSeconds), classz, supplier);
     }
 
     @Override
     public <R> List<R> easyCache4Array(String key, int seconds,int nullSeconds,Class<R> classz, Supplier<R> supplier){
-        String res = queryEasyCacheJsonStr(key, seconds, nullSeconds, supplier);
-        if (StringUtils.isEmpty(res)) return null;
-        return JSON.parseArray(res, classz);
+        return easyCache4Array(key, EasyCacheOptions.of(seconds, nullSeconds), classz, supplier);
+    }
+
+    @Override
+    public String easyCache(String key, EasyCacheOptions options, Supplier<String> supplier){
+        return EasyCacheLoader.load(this, easyCacheRefresher, key, options, supplier);
+    }
+
+    @Override
+    public <R> R easyCache(String key, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier){
+        return EasyCacheLoader.load(this, easyCacheRefresher, key, options, classz, supplier);
+    }
+
+    @Override
+    public <R> List<R> easyCache4Array(String key, EasyCacheOptions options, Class<R> classz, Supplier<R> supplier){
+        return EasyCacheLoader.load(this, easyCacheRefresher, key, options, new ParameterizedTypeImpl(new Type[]{classz}, null, List.class), supplier);
     }
 
     @Override
     public <T> T easyLock(String key, int seconds, Supplier<T> supplier){
+        return easyLock(key, seconds, false, supplier);
+    }
+
+    @Override
+    public <T> T easyLock(String key, int seconds, boolean watchdog, Supplier<T> supplier){
+        return easyLock(key, EasyLockOptions.of(seconds).watchdog(watchdog), supplier);
+    }
+
+    @Override
+    public <T> T easyLock(String key, EasyLockOptions options, Supplier<T> supplier){
         // 尝试加锁
-        boolean lock = this.lock(key,seconds);
+        boolean lock = this.lock(key,options);
         if(!lock){
             log.error("[starter][cache][easyLock]加锁错误!key:" + key);
             throw new CacheStarterException(CacheStarterCode.LOCK_ERROR);
@@ -561,8 +968,13 @@ public class JedisClusterServiceImpl implements RedisService {
 
     @Override
     public <T> T easySpinLock(String key, int seconds,int applytimeout, Supplier<T> supplier){
+        return easySpinLock(key, seconds, applytimeout, false, supplier);
+    }
+
+    @Override
+    public <T> T easySpinLock(String key, int seconds,int applytimeout, boolean watchdog, Supplier<T> supplier){
         // 尝试加锁
-        boolean lock = this.lockSpin(key,seconds,applytimeout);
+        boolean lock = this.lock(key,EasyLockOptions.of(seconds).spin(applytimeout).watchdog(watchdog));
         if(!lock){
             log.error("[starter][cache][easySpinLock]加锁错误!key:" + key);
             throw new CacheStarterException(CacheStarterCode.LOCK_ERROR);
@@ -601,14 +1013,142 @@ public class JedisClusterServiceImpl implements RedisService {
         }
     }
 
-    private <R> String queryEasyCacheJsonStr(String key, int seconds, int nullSeconds, Supplier<R> supplier) {
-        // 优先读取缓存
-        return easyCache(key, seconds, nullSeconds,() -> {
-            R r = supplier.get();
-            if(r != null){
-                return JSON.toJSONString(r);
+
+
+    /**
+     * 多key命令按slot拆分执行，返回各slot结果之和
+     * @param command
+     * @param keys
+     * @return
+     */
+    private Long multiKeyCount(Protocol.Command command, String... keys) {
+        if(keys == null || keys.length == 0){
+            return 0L;
+        }
+        RedisBatch batch = new RedisBatch();
+        for(List<String> slotKey : groupBySlot(Arrays.asList(keys)).values()){
+            batch.command(slotKey.get(0), command, BuilderFactory.LONG, slotKey.subList(1, slotKey.size()).toArray(new String[0]));
+        }
+        long count = 0;
+        for(Object res : RedisBatch.checkResults(executeBatch(batch))){
+            count += (Long) res;
+        }
+        return count;
+    }
+
+    /**
+     * key按slot分组，去重并保持输入顺序
+     * @param keys
+     * @return slot -> keys
+     */
+    private static Map<Integer, List<String>> groupBySlot(Collection<String> keys) {
+        Map<Integer, List<String>> slotKeys = new LinkedHashMap<>();
+        Set<String> distinct = new HashSet<>(keys.size() * 4 / 3 + 1);
+        for(String key : keys){
+            if(distinct.add(key)){
+                slotKeys.computeIfAbsent(JedisClusterCRC16.getSlot(key), k -> new ArrayList<>()).add(key);
             }
-            return null;
-        });
+        }
+        return slotKeys;
+    }
+
+    /**
+     * 删除缓存后通知多级缓存清理本地副本
+     * @param keys
+     */
+    private void broadcastInvalidation(String... keys){
+        if(nearCacheInvalidator != null){
+            nearCacheInvalidator.broadcast(this, keys);
+        }
+    }
+
+    /**
+     * 分布式等待锁释放通知，未注入时仅按指数退避轮询
+     * @return
+     */
+    private LockNotifier lockNotifier(){
+        return lockNotifier != null ? lockNotifier : LockNotifier.POLLING;
+    }
+
+    /**
+     * 分布式锁的本地合并，未注入时直接操作redis锁
+     * @return
+     */
+    private LocalLockCoalescer lockCoalescer(){
+        return lockCoalescer != null ? lockCoalescer : LocalLockCoalescer.NONE;
+    }
+
+    /**
+     * 分布式锁的持有记录与租约续期，未注入时仅记录令牌
+     * @return
+     */
+    private LockWatchdog lockWatchdog(){
+        return lockWatchdog != null ? lockWatchdog : LockWatchdog.NONE;
+    }
+
+    /**
+     * redis锁操作，锁的值为持有者令牌，可重入锁为hash(持有者令牌 -> 次数)
+     * @param lockKey 锁key
+     * @param options 锁参数
+     * @return
+     */
+    private LocalLockCoalescer.RedisLock redisLock(String lockKey, EasyLockOptions options){
+        int seconds = options.getSeconds();
+        long leaseMillis = ((long) seconds) * 1000;
+        return new LocalLockCoalescer.RedisLock() {
+            @Override
+            public boolean acquire(long waitMillis) throws InterruptedException {
+                String token = LockWatchdog.newToken();
+                // 判断锁是否能加锁，成功设置表示加锁成功，利用set nx效果，如果存在相同值则返回失败的特性；可重入锁为hash，脚本判断
+                BooleanSupplier tryLock = options.isReentrant()
+                        ? () -> Long.valueOf(1).equals(evalsha(LockWatchdog.REENTRANT_LOCK_SCRIPT, lockKey, token, String.valueOf(leaseMillis)))
+                        : () -> setnx(lockKey, token, seconds);
+                boolean res;
+                if(waitMillis <= 0){
+                    res = tryLock.getAsBoolean();
+                } else {
+                    // 加锁失败时等待释放通知，未收到通知时按指数退避重试，直到超时
+                    res = lockNotifier().await(lockKey, waitMillis, tryLock);
+                }
+                if(res){
+                    lockWatchdog().hold(lockKey, token, leaseMillis, options.isWatchdog());
+                }
+                return res;
+            }
+
+            @Override
+            public boolean renew() {
+                // 已移交的锁令牌一致时续期，按新持有线程的超时时间和续期方式记录
+                String token = lockWatchdog().handedOver(lockKey);
+                if(token != null && Long.valueOf(1).equals(evalsha(LockWatchdog.RENEW_SCRIPT, lockKey, token, String.valueOf(leaseMillis)))){
+                    lockWatchdog().hold(lockKey, token, leaseMillis, options.isWatchdog());
+                    return true;
+                }
+                lockWatchdog().release(lockKey);
+                return false;
+            }
+
+            @Override
+            public long leaseRemaining() {
+                return lockWatchdog().remaining(lockKey);
+            }
+
+            @Override
+            public void handOver() {
+                lockWatchdog().handOver(lockKey);
+            }
+
+            @Override
+            public boolean release() {
+                // 令牌一致时删除，本节点未持有或锁已过期被他人持有时不删除
+                String token = lockWatchdog().release(lockKey);
+                boolean res = token != null && Long.valueOf(1).equals(evalsha(LockWatchdog.RELEASE_SCRIPT, lockKey, token));
+                if(res){
+                    // 通知等待线程
+                    lockNotifier().signal(JedisClusterServiceImpl.this, lockKey);
+                }
+                return res;
+            }
+        };
     }
 }
@@ -0,0 +1,147 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.utils.CacheMetricsUtils;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存内容压缩(Deflate)
+ * <pre>
+ *     Deflater、Inflater和缓冲区按线程复用，超过复用上限的缓冲区不保留
+ * </pre>
+ **/
+public class CacheCompressor {
+
+    /**
+     * 复用缓冲区的最大字节数
+     */
+    private static final int MAX_POOLED_BYTES = 4 * 1024 * 1024;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private static final ThreadLocal<byte[]> COMPRESS_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private static final ThreadLocal<byte[]> DECOMPRESS_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    /**
+     * 全局压缩阈值 - 单位:字节，小于等于0不压缩
+     */
+    private static volatile int defaultThreshold;
+
+    private CacheCompressor() {
+    }
+
+    public static void setDefaultThreshold(int threshold) {
+        defaultThreshold = threshold;
+    }
+
+    /**
+     * 获取生效的压缩阈值
+     * @param threshold 指定阈值，小于0时使用全局阈值
+     * @return 小于等于0不压缩
+     */
+    public static int threshold(int threshold) {
+        return threshold < 0 ? defaultThreshold : threshold;
+    }
+
+    /**
+     * 压缩
+     * @param input
+     * @param reserve 结果数组头部预留的字节数
+     * @return 头部预留reserve字节，之后为压缩内容；压缩后未变小时返回null
+     */
+    static byte[] compress(byte[] input, int reserve) {
+        long start = System.nanoTime();
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+
+        byte[] buffer = COMPRESS_BUFFER.get();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                // 压缩后不小于原内容时放弃
+                if (length >= input.length) {
+                    CacheMetricsUtils.incr(CacheMetricsUtils.COMPRESS_SKIPPED);
+                    return null;
+                }
+                buffer = grow(buffer, Math.min(buffer.length << 1, input.length), COMPRESS_BUFFER);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        if (length >= input.length) {
+            CacheMetricsUtils.incr(CacheMetricsUtils.COMPRESS_SKIPPED);
+            return null;
+        }
+
+        byte[] result = new byte[reserve + length];
+        System.arraycopy(buffer, 0, result, reserve, length);
+
+        CacheMetricsUtils.incr(CacheMetricsUtils.COMPRESS_COUNT);
+        CacheMetricsUtils.add(CacheMetricsUtils.COMPRESS_BYTES_IN, input.length);
+        CacheMetricsUtils.add(CacheMetricsUtils.COMPRESS_BYTES_OUT, length);
+        CacheMetricsUtils.add(CacheMetricsUtils.COMPRESS_NANOS, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 解压，结果写入线程复用的缓冲区，同一线程再次解压前有效
+     * @param input
+     * @param offset
+     * @param length
+     * @param originalLength 压缩前长度
+     * @return 前originalLength字节为解压内容
+     */
+    static byte[] decompress(byte[] input, int offset, int length, int originalLength) {
+        long start = System.nanoTime();
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(input, offset, length);
+
+        byte[] buffer = DECOMPRESS_BUFFER.get();
+        if (buffer.length < originalLength) {
+            buffer = grow(buffer, originalLength, DECOMPRESS_BUFFER);
+        }
+        try {
+            int total = 0;
+            while (total < originalLength && !inflater.finished()) {
+                int count = inflater.inflate(buffer, total, originalLength - total);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                total += count;
+            }
+            if (total != originalLength || !inflater.finished()) {
+                throw new CacheStarterException("[错误]缓存解压异常，数据不完整");
+            }
+        } catch (DataFormatException e) {
+            throw new CacheStarterException("[错误]缓存解压异常，msg=" + e.getMessage());
+        }
+
+        CacheMetricsUtils.incr(CacheMetricsUtils.DECOMPRESS_COUNT);
+        CacheMetricsUtils.add(CacheMetricsUtils.DECOMPRESS_NANOS, System.nanoTime() - start);
+        return buffer;
+    }
+
+    /**
+     * 扩容缓冲区，不超过复用上限时保留
+     * @param buffer
+     * @param length
+     * @param pool
+     * @return
+     */
+    private static byte[] grow(byte[] buffer, int length, ThreadLocal<byte[]> pool) {
+        byte[] grown = new byte[Math.max(length, buffer.length)];
+        System.arraycopy(buffer, 0, grown, 0, buffer.length);
+        if (grown.length <= MAX_POOLED_BYTES) {
+            pool.set(grown);
+        }
+        return grown;
+    }
+}
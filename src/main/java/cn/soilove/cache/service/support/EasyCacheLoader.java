@@ -0,0 +1,287 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyCacheValue;
+import cn.soilove.cache.serializer.CacheSerializers;
+import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.utils.CacheMetricsUtils;
+import cn.soilove.cache.utils.RedisKeysEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 简易缓存加载
+ **/
+@Slf4j(topic = "[starter][cache][easyCache]")
+public class EasyCacheLoader {
+
+    /**
+     * 退避等待 - 初始间隔毫秒
+     */
+    private static final long MIN_BACKOFF_MILLIS = 10;
+
+    /**
+     * 退避等待 - 最大间隔毫秒
+     */
+    private static final long MAX_BACKOFF_MILLIS = 200;
+
+    /**
+     * 互斥锁释放脚本，仅持有者可释放
+     */
+    private static final String MUTEX_RELEASE_SCRIPT =
+            "if redis.call('get',KEYS[1]) == ARGV[1] then " +
+            "return redis.call('del',KEYS[1]) " +
+            "else return 0 end";
+
+    private EasyCacheLoader() {
+    }
+
+    /**
+     * 读取缓存，未命中时加载并设置
+     * @param redisService
+     * @param refresher 后台刷新，为空时软超时后同步刷新
+     * @param key
+     * @param options
+     * @param supplier
+     * @return
+     */
+    public static String load(RedisService redisService, EasyCacheRefresher refresher, String key, EasyCacheOptions options, Supplier<String> supplier){
+        return load(new StringCacheStore(redisService), refresher, key, options, supplier);
+    }
+
+    /**
+     * 读取序列化对象缓存，未命中时加载并设置
+     * @param redisService
+     * @param refresher 后台刷新，为空时软超时后同步刷新
+     * @param key
+     * @param options 序列化器为空时使用全局默认序列化器
+     * @param type 缓存值的声明类型
+     * @param supplier
+     * @param <T> 与type一致的返回类型
+     * @return
+     */
+    @SuppressWarnings("unchecked") // 缓存值按type反序列化或由supplier加载，与调用方声明的T一致
+    public static <T> T load(RedisService redisService, EasyCacheRefresher refresher, String key, EasyCacheOptions options, Type type, Supplier<?> supplier){
+        SerializedCacheStore store = new SerializedCacheStore(redisService, CacheSerializers.get(options.getSerializer()), type);
+        return (T) load(store, refresher, key, options, supplier::get);
+    }
+
+    /**
+     * 批量读取缓存，与单个读取使用相同的序列化器和格式，单个缓存无法读取时视为未命中
+     * @param redisService
+     * @param keys
+     * @param options
+     * @param type 缓存值的声明类型，String时按字符串缓存读取
+     * @return 命中的缓存key -> 缓存值，缓存了空值时值为null
+     */
+    public static Map<String, Object> readAll(RedisService redisService, List<String> keys, EasyCacheOptions options, Type type){
+        if(type == String.class){
+            return readAll(new StringCacheStore(redisService), keys);
+        }
+        return readAll(new SerializedCacheStore(redisService, CacheSerializers.get(options.getSerializer()), type), keys);
+    }
+
+    /**
+     * 批量写入缓存，与单个写入使用相同的序列化器、压缩阈值和格式
+     * @param redisService
+     * @param values 缓存key -> 缓存值，值为null时按空值缓存时间写入空值
+     * @param options
+     * @param type 缓存值的声明类型，String时按字符串缓存写入
+     */
+    public static void writeAll(RedisService redisService, Map<String, ?> values, EasyCacheOptions options, Type type){
+        if(type == String.class){
+            Map<String, String> stringValues = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+            values.forEach((key, value) -> stringValues.put(key, value == null ? null : value.toString()));
+            new StringCacheStore(redisService).writeAll(stringValues, options);
+            return;
+        }
+        new SerializedCacheStore(redisService, CacheSerializers.get(options.getSerializer()), type).writeAll(new LinkedHashMap<>(values), options);
+    }
+
+    private static <V> Map<String, Object> readAll(EasyCacheStore<V> store, List<String> keys){
+        List<EasyCacheValue<V>> cacheValues = store.readAll(keys);
+        Map<String, Object> values = new LinkedHashMap<>(keys.size() * 4 / 3 + 1);
+        for(int i = 0; i < keys.size(); i++){
+            if(cacheValues.get(i) != null){
+                values.put(keys.get(i), cacheValues.get(i).getValue());
+            }
+        }
+        return values;
+    }
+
+    private static <V> V load(EasyCacheStore<V> store, EasyCacheRefresher refresher, String key, EasyCacheOptions options, Supplier<V> supplier){
+        // 优先读取缓存
+        EasyCacheValue<V> cacheValue = store.read(key);
+        if(cacheValue != null){
+            // 判断是否为空值
+            if(cacheValue.getValue() == null){
+                return null;
+            }
+            // 概率提前重建
+            if(shouldEarlyRefresh(cacheValue, options)){
+                log.debug("[starter][cache][easyCache]提前重建缓存!key:" + key);
+                return loadAndSet(store, key, options, supplier);
+            }
+            // 软超时：未开启后台刷新时同步刷新，方法可能依赖调用线程的上下文，否则返回旧值并后台刷新
+            if(isStale(cacheValue, options)){
+                if(refresher == null || !options.isAsyncRefresh()){
+                    return loadAndSet(store, key, options, supplier);
+                }
+                refresher.refresh(key, () -> refresh(store, key, options, supplier));
+            }
+            return cacheValue.getValue();
+        }
+
+        if(!options.isGuard()){
+            return loadAndSet(store, key, options, supplier);
+        }
+        return guardedLoad(store, key, options, supplier);
+    }
+
+    /**
+     * 防击穿加载：获取互斥锁的调用方重建缓存，其他调用方退避等待后重新读取，超时则直接加载
+     * @param redisService
+     * @param key
+     * @param options
+     * @param supplier
+     * @return
+     */
+    private static <V> V guardedLoad(EasyCacheStore<V> store, String key, EasyCacheOptions options, Supplier<V> supplier){
+        RedisService redisService = store.getRedisService();
+        String mutexKey = RedisKeysEnum.EASY_CACHE_MUTEX.parseKey(key);
+        String token = UUID.randomUUID().toString();
+        int mutexSeconds = (int) Math.max(1, (options.getGuardWaitMillis() + 999) / 1000);
+
+        if(redisService.setnx(mutexKey, token, mutexSeconds)){
+            try {
+                // 再次读取，防止获取锁前其他调用方已完成重建
+                EasyCacheValue<V> cacheValue = store.read(key);
+                if(cacheValue != null){
+                    return cacheValue.getValue();
+                }
+                return loadAndSet(store, key, options, supplier);
+            } finally {
+                redisService.eval(MUTEX_RELEASE_SCRIPT, Collections.singletonList(mutexKey), Collections.singletonList(token));
+            }
+        }
+
+        // 退避等待重建结果
+        long deadline = System.currentTimeMillis() + options.getGuardWaitMillis();
+        long backoff = MIN_BACKOFF_MILLIS;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                Thread.sleep(Math.min(backoff, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            EasyCacheValue<V> cacheValue = store.read(key);
+            if(cacheValue != null){
+                return cacheValue.getValue();
+            }
+            // 互斥锁已释放但无缓存，说明重建失败，不再等待
+            if(!redisService.exists(mutexKey)){
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+
+        log.warn("[starter][cache][easyCache]等待缓存重建超时，直接加载!key:" + key);
+        return loadAndSet(store, key, options, supplier);
+    }
+
+    /**
+     * 后台刷新，开启防击穿时跨JVM仅一个调用方刷新
+     * @param redisService
+     * @param key
+     * @param options
+     * @param supplier
+     */
+    private static <V> void refresh(EasyCacheStore<V> store, String key, EasyCacheOptions options, Supplier<V> supplier){
+        if(!options.isGuard()){
+            loadAndSet(store, key, options, supplier);
+            return;
+        }
+        RedisService redisService = store.getRedisService();
+        String mutexKey = RedisKeysEnum.EASY_CACHE_MUTEX.parseKey(key);
+        String token = UUID.randomUUID().toString();
+        int mutexSeconds = (int) Math.max(1, (options.getGuardWaitMillis() + 999) / 1000);
+        if(!redisService.setnx(mutexKey, token, mutexSeconds)){
+            CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_COALESCED);
+            return;
+        }
+        try {
+            loadAndSet(store, key, options, supplier);
+        } finally {
+            redisService.eval(MUTEX_RELEASE_SCRIPT, Collections.singletonList(mutexKey), Collections.singletonList(token));
+        }
+    }
+
+    /**
+     * 执行查询并设置缓存
+     * @param redisService
+     * @param key
+     * @param options
+     * @param supplier
+     * @return
+     */
+    private static <V> V loadAndSet(EasyCacheStore<V> store, String key, EasyCacheOptions options, Supplier<V> supplier){
+        // 执行查询
+        long start = System.nanoTime();
+        V res = supplier.get();
+        // 空值处理
+        if(store.isEmpty(res)){
+            store.getRedisService().set(key, RedisService.NULL_VALUE, options.getNullSeconds());
+            return null;
+        }
+        // 有值设置，开启提前重建或软超时时记录元数据
+        if(options.getBeta() > 0 || options.isStaleWhileRevalidate()){
+            long now = System.currentTimeMillis();
+            long delta = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long expireAt = now + TimeUnit.SECONDS.toMillis(options.getSeconds());
+            long softExpireAt = options.isStaleWhileRevalidate() ? now + TimeUnit.SECONDS.toMillis(options.getSoftSeconds()) : 0;
+            store.write(key, res, options, true, delta, expireAt, softExpireAt);
+        } else {
+            store.write(key, res, options, false, 0, 0, 0);
+        }
+        return res;
+    }
+
+    /**
+     * XFetch算法：now - delta * beta * ln(random) >= expireAt 时提前重建
+     * @param cacheValue
+     * @param options
+     * @return
+     */
+    private static boolean shouldEarlyRefresh(EasyCacheValue<?> cacheValue, EasyCacheOptions options){
+        if(options.getBeta() <= 0 || cacheValue.getExpireAt() <= 0){
+            return false;
+        }
+        // 取值范围(0,1]，避免ln(0)
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -cacheValue.getDelta() * options.getBeta() * Math.log(random);
+        return System.currentTimeMillis() + gap >= cacheValue.getExpireAt();
+    }
+
+    /**
+     * 是否已超过软超时
+     * @param cacheValue
+     * @param options
+     * @return
+     */
+    private static boolean isStale(EasyCacheValue<?> cacheValue, EasyCacheOptions options){
+        return options.isStaleWhileRevalidate()
+                && cacheValue.getSoftExpireAt() > 0
+                && System.currentTimeMillis() >= cacheValue.getSoftExpireAt();
+    }
+}
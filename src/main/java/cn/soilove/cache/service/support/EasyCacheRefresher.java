@@ -0,0 +1,90 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.utils.CacheMetricsUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 简易缓存后台刷新，同一key同时只有一个刷新任务
+ * <pre>
+ *     刷新任务在线程池中执行，不继承调用线程的事务、ThreadLocal和安全上下文，
+ *     仅用于开启asyncRefresh(声明可在任意线程执行)的缓存
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][easyCache]")
+public class EasyCacheRefresher {
+
+    /**
+     * 刷新线程池
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 刷新中的key
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param threads 刷新线程数
+     * @param queueCapacity 等待队列容量
+     */
+    public EasyCacheRefresher(int threads, int queueCapacity) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "easy-cache-refresh-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 提交刷新任务
+     * @param key 缓存key
+     * @param task 刷新任务
+     * @return true-已提交/false-已在刷新中或线程池已满
+     */
+    public boolean refresh(String key, Runnable task){
+        if(!refreshingKeys.add(key)){
+            CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_COALESCED);
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                    CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_SUCCESS);
+                } catch (Exception e) {
+                    CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_FAILED);
+                    log.error("[starter][cache][easyCache]后台刷新缓存异常!key:" + key, e);
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+            CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_SCHEDULED);
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+            CacheMetricsUtils.incr(CacheMetricsUtils.REFRESH_SKIPPED);
+            log.warn("[starter][cache][easyCache]后台刷新线程池已满，跳过刷新!key:" + key);
+            return false;
+        }
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown(){
+        executor.shutdown();
+    }
+}
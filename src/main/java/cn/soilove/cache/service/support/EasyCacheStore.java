@@ -0,0 +1,56 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyCacheValue;
+import cn.soilove.cache.service.RedisService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 简易缓存的读写方式
+ **/
+interface EasyCacheStore<V> {
+
+    RedisService getRedisService();
+
+    /**
+     * 读取缓存
+     * @param key
+     * @return 未命中返回null，缓存了空值时value为null
+     */
+    EasyCacheValue<V> read(String key);
+
+    /**
+     * 写入缓存
+     * @param key
+     * @param value 非空值
+     * @param options
+     * @param meta 是否记录元数据
+     * @param delta 重建耗时 - 单位:毫秒
+     * @param expireAt 失效时间戳 - 单位:毫秒
+     * @param softExpireAt 软失效时间戳 - 单位:毫秒
+     */
+    void write(String key, V value, EasyCacheOptions options, boolean meta, long delta, long expireAt, long softExpireAt);
+
+    /**
+     * 批量读取缓存，一次命令读取，单个缓存无法读取时视为未命中
+     * @param keys
+     * @return 与keys顺序一致，未命中为null
+     */
+    List<EasyCacheValue<V>> readAll(List<String> keys);
+
+    /**
+     * 批量写入缓存，不记录元数据
+     * @param values 缓存key -> 缓存值，值为null时写入空值
+     * @param options
+     */
+    void writeAll(Map<String, V> values, EasyCacheOptions options);
+
+    /**
+     * 是否为空值
+     * @param value
+     * @return
+     */
+    boolean isEmpty(V value);
+}
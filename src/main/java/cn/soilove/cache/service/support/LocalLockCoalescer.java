@@ -0,0 +1,322 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.utils.CacheMetricsUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁的本地合并
+ * <pre>
+ *     同一JVM内同一个锁key只有一个线程竞争redis锁，其余线程在本地公平排队；
+ *     持有线程释放时若本地仍有排队线程，不释放redis锁而是直接移交给下一个本地线程(续期后使用)，
+ *     连续移交达到上限后释放redis锁，避免其他节点长期拿不到锁；
+ *     本地持有以redis锁的租约为限，持有线程未解锁(仅依赖超时时间、线程已结束等)且租约已过期时，排队线程回收其本地许可
+ * </pre>
+ **/
+public class LocalLockCoalescer {
+
+    /**
+     * 未开启合并时使用，直接操作redis锁
+     */
+    public static final LocalLockCoalescer NONE = new LocalLockCoalescer(false, 0);
+
+    /**
+     * 是否开启合并
+     */
+    private final boolean enabled;
+
+    /**
+     * 最大连续移交次数
+     */
+    private final int maxHandover;
+
+    /**
+     * 使用中的锁
+     * key=锁key
+     * value=本地锁
+     */
+    private final Map<String, LocalLock> lockMap = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled 是否开启合并
+     * @param maxHandover 最大连续移交次数，0不移交
+     */
+    public LocalLockCoalescer(boolean enabled, int maxHandover) {
+        this.enabled = enabled;
+        this.maxHandover = maxHandover;
+    }
+
+    /**
+     * 加锁：先获取本地锁，已由本地上一个持有线程移交时续期后直接使用，否则竞争redis锁
+     * @param lockKey 锁key
+     * @param waitMillis 最长等待时间 - 单位:毫秒，0不等待
+     * @param redisLock redis锁操作
+     * @return true-加锁成功
+     * @throws InterruptedException
+     */
+    public boolean lock(String lockKey, long waitMillis, RedisLock redisLock) throws InterruptedException {
+        if(!enabled){
+            return redisLock.acquire(waitMillis);
+        }
+        long deadline = System.currentTimeMillis() + waitMillis;
+        LocalLock local = retain(lockKey);
+        boolean locked = false;
+        try {
+            if(!acquirePermit(lockKey, local, deadline, redisLock)){
+                releaseOrphan(local, redisLock);
+                return false;
+            }
+            try {
+                if(local.handedOver){
+                    local.handedOver = false;
+                    // 续期失败说明移交期间redis锁已过期，重新竞争
+                    locked = redisLock.renew() || redisLock.acquire(Math.max(0, deadline - System.currentTimeMillis()));
+                } else {
+                    locked = redisLock.acquire(Math.max(0, deadline - System.currentTimeMillis()));
+                    local.handovers = 0;
+                }
+                if(locked){
+                    synchronized (local){
+                        local.owner = Thread.currentThread();
+                    }
+                }
+                return locked;
+            } finally {
+                if(!locked){
+                    local.permit.release();
+                }
+            }
+        } finally {
+            if(!locked){
+                release(lockKey, local);
+            }
+        }
+    }
+
+    /**
+     * 解锁：本地有排队线程且未达到移交上限时移交redis锁，否则释放redis锁，本节点其他线程持有时不解锁
+     * @param lockKey 锁key
+     * @param redisLock redis锁操作
+     * @return true-解锁成功
+     */
+    public boolean unlock(String lockKey, RedisLock redisLock){
+        LocalLock local = enabled ? lockMap.get(lockKey) : null;
+        Thread owner = null;
+        if(local != null){
+            synchronized (local){
+                owner = local.owner;
+                if(owner == Thread.currentThread()){
+                    local.owner = null;
+                }
+            }
+        }
+        // 本节点其他线程持有，不能解锁
+        if(owner != null && owner != Thread.currentThread()){
+            return false;
+        }
+        // 本节点未持有，可能是其他节点的锁或锁已过期
+        if(owner == null){
+            return redisLock.release();
+        }
+        try {
+            if(local.permit.hasQueuedThreads() && local.handovers < maxHandover){
+                redisLock.handOver();
+                local.handovers++;
+                local.handedOver = true;
+                CacheMetricsUtils.incr(CacheMetricsUtils.LOCK_HANDOVER);
+                return true;
+            }
+            local.handovers = 0;
+            return redisLock.release();
+        } finally {
+            local.permit.release();
+            // 排队线程恰好等待超时离开时，移交无人接手
+            releaseOrphan(local, redisLock);
+            release(lockKey, local);
+        }
+    }
+
+    /**
+     * 其他线程解锁时，由当前线程接管本地锁
+     * @param lockKey 锁key
+     */
+    public void adopt(String lockKey){
+        LocalLock local = enabled ? lockMap.get(lockKey) : null;
+        if(local != null){
+            synchronized (local){
+                if(local.owner != null){
+                    local.owner = Thread.currentThread();
+                }
+            }
+        }
+    }
+
+    /**
+     * 强制解锁时释放本地锁，不校验持有线程
+     * @param lockKey 锁key
+     */
+    public void forceUnlock(String lockKey){
+        LocalLock local = enabled ? lockMap.get(lockKey) : null;
+        if(local == null){
+            return;
+        }
+        Thread owner;
+        synchronized (local){
+            owner = local.owner;
+            local.owner = null;
+        }
+        if(owner != null){
+            local.handovers = 0;
+            local.permit.release();
+            release(lockKey, local);
+        }
+    }
+
+    /**
+     * 获取本地许可，最多等到持有线程的租约到期，到期后回收其许可
+     * @param lockKey
+     * @param local
+     * @param deadline 等待截止时间
+     * @param redisLock
+     * @return true-已获取
+     * @throws InterruptedException
+     */
+    private boolean acquirePermit(String lockKey, LocalLock local, long deadline, RedisLock redisLock) throws InterruptedException {
+        while(true){
+            reclaim(lockKey, local, redisLock);
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0){
+                return local.permit.tryAcquire();
+            }
+            long leaseMillis = redisLock.leaseRemaining();
+            if(local.permit.tryAcquire(leaseMillis > 0 ? Math.min(remaining, leaseMillis) : remaining, TimeUnit.MILLISECONDS)){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 持有线程的租约已过期时回收其本地许可，此时redis锁已按超时时间释放或已不属于本节点
+     * @param lockKey
+     * @param local
+     * @param redisLock
+     */
+    private void reclaim(String lockKey, LocalLock local, RedisLock redisLock){
+        synchronized (local){
+            if(local.owner == null || redisLock.leaseRemaining() > 0){
+                return;
+            }
+            local.owner = null;
+        }
+        local.handovers = 0;
+        local.permit.release();
+        release(lockKey, local);
+    }
+
+    /**
+     * 移交的redis锁已无人接手时(排队线程等待超时)，释放redis锁
+     * @param local
+     * @param redisLock
+     */
+    private static void releaseOrphan(LocalLock local, RedisLock redisLock){
+        if(!local.handedOver || !local.permit.tryAcquire()){
+            return;
+        }
+        try {
+            if(local.handedOver && !local.permit.hasQueuedThreads()){
+                local.handedOver = false;
+                local.handovers = 0;
+                redisLock.release();
+            }
+        } finally {
+            local.permit.release();
+        }
+    }
+
+    private LocalLock retain(String lockKey){
+        return lockMap.compute(lockKey, (k, v) -> {
+            LocalLock current = v == null ? new LocalLock() : v;
+            current.refs++;
+            return current;
+        });
+    }
+
+    private void release(String lockKey, LocalLock local){
+        lockMap.computeIfPresent(lockKey, (k, v) -> v == local && --v.refs == 0 ? null : v);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * redis锁操作
+     */
+    public interface RedisLock {
+
+        /**
+         * 竞争redis锁
+         * @param waitMillis 最长等待时间 - 单位:毫秒，0不等待
+         * @return true-加锁成功
+         * @throws InterruptedException
+         */
+        boolean acquire(long waitMillis) throws InterruptedException;
+
+        /**
+         * 续期移交的redis锁
+         * @return false-锁已不存在
+         */
+        boolean renew();
+
+        /**
+         * 本节点持有的redis锁的剩余租约时间
+         * @return 单位:毫秒，未持有或已过期时为0
+         */
+        long leaseRemaining();
+
+        /**
+         * 持有线程将redis锁移交给本地排队线程
+         */
+        void handOver();
+
+        /**
+         * 释放redis锁
+         * @return true-释放成功
+         */
+        boolean release();
+    }
+
+    /**
+     * 同一个锁key的本地锁
+     */
+    private static final class LocalLock {
+
+        /**
+         * 本地许可，公平排队
+         */
+        private final Semaphore permit = new Semaphore(1, true);
+
+        /**
+         * 引用数，仅在lockMap.compute内修改
+         */
+        private int refs;
+
+        /**
+         * 持有线程，为空时本节点未持有
+         */
+        private Thread owner;
+
+        /**
+         * redis锁是否已移交给下一个本地线程
+         */
+        private volatile boolean handedOver;
+
+        /**
+         * 连续移交次数
+         */
+        private int handovers;
+    }
+}
@@ -0,0 +1,275 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.utils.CacheMetricsUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 分布式等待锁的释放通知
+ * <pre>
+ *     释放锁时向该锁的频道(channelPrefix + 锁key)发布消息，每个JVM使用一个订阅连接按前缀订阅全部锁频道，
+ *     等待线程在本地挂起，收到释放通知后立即重试加锁；
+ *     锁超时自动过期或通知丢失时不会收到消息，等待线程按指数退避(含随机抖动)定时重试兜底
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][lockNotify]")
+public class LockNotifier implements SmartInitializingSingleton {
+
+    /**
+     * 未开启通知时使用，仅按指数退避轮询
+     */
+    public static final LockNotifier POLLING = new LockNotifier("", false);
+
+    /**
+     * 首次重试间隔 - 单位:毫秒
+     */
+    private static final long INITIAL_BACKOFF = 10;
+
+    /**
+     * 最大重试间隔 - 单位:毫秒
+     */
+    private static final long MAX_BACKOFF = 500;
+
+    /**
+     * 订阅断开后的重连间隔 - 单位:毫秒
+     */
+    private static final long RECONNECT_INTERVAL = 1000;
+
+    @Autowired
+    private RedisService redisService;
+
+    /**
+     * 锁释放频道前缀，完整频道为前缀 + 锁key
+     */
+    private final String channelPrefix;
+
+    /**
+     * 是否开启通知，关闭时不发布、不订阅
+     */
+    private final boolean enabled;
+
+    /**
+     * 等待中的锁
+     * key=锁key
+     * value=等待者
+     */
+    private final Map<String, Waiters> waitersMap = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private volatile JedisPubSub pubSub;
+
+    private Thread subscriber;
+
+    /**
+     * @param channelPrefix 锁释放频道前缀
+     * @param enabled 是否开启通知
+     */
+    public LockNotifier(String channelPrefix, boolean enabled) {
+        this.channelPrefix = channelPrefix;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 等待并加锁，直到加锁成功或超时
+     * @param lockKey 锁key
+     * @param waitMillis 最长等待时间 - 单位:毫秒
+     * @param tryLock 加锁操作
+     * @return true-加锁成功
+     * @throws InterruptedException
+     */
+    public boolean await(String lockKey, long waitMillis, BooleanSupplier tryLock) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        Waiters waiters = waitersMap.compute(lockKey, (k, v) -> {
+            Waiters current = v == null ? new Waiters() : v;
+            current.count++;
+            return current;
+        });
+        try {
+            long backoff = INITIAL_BACKOFF;
+            while (true){
+                // 先记录版本再加锁，加锁失败后版本变化说明期间已释放，不再挂起
+                long version = waiters.version();
+                if(tryLock.getAsBoolean()){
+                    return true;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0){
+                    return false;
+                }
+                // 全抖动：在[backoff/2, backoff]之间随机，避免多个节点同时重试
+                long jitter = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                waiters.await(version, Math.min(jitter, remaining));
+                backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            }
+        } finally {
+            waitersMap.computeIfPresent(lockKey, (k, v) -> --v.count == 0 ? null : v);
+        }
+    }
+
+    /**
+     * 释放锁后调用：唤醒本节点的等待线程，并通知其他节点，通知失败不影响释放结果
+     * @param redisService
+     * @param lockKey 锁key
+     */
+    public void signal(RedisService redisService, String lockKey){
+        wakeUp(lockKey);
+        if(!enabled){
+            return;
+        }
+        try {
+            redisService.publish(channelPrefix + lockKey, "");
+            CacheMetricsUtils.incr(CacheMetricsUtils.LOCK_NOTIFY_PUBLISHED);
+        } catch (RuntimeException e) {
+            log.error("[starter][cache][lockNotify]发布锁释放消息异常!key:" + lockKey, e);
+        }
+    }
+
+    /**
+     * 唤醒指定锁的一个本地等待线程，同一时刻只有一个线程能加锁成功，避免全部唤醒后同时争抢
+     * @param lockKey
+     */
+    private void wakeUp(String lockKey){
+        Waiters waiters = waitersMap.get(lockKey);
+        if(waiters != null){
+            waiters.signal();
+        }
+    }
+
+    /**
+     * 唤醒全部本地等待线程，重新订阅后调用，断开期间可能遗漏释放消息
+     */
+    private void wakeUpAll(){
+        waitersMap.values().forEach(Waiters::signalAll);
+    }
+
+    /**
+     * 容器初始化完成后启动订阅线程
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if(!enabled){
+            return;
+        }
+        running = true;
+        subscriber = new Thread(this::subscribe, "easy-cache-lock-notify");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * 按前缀订阅锁释放消息，连接断开后重连
+     */
+    private void subscribe(){
+        while (running){
+            JedisPubSub current = new JedisPubSub() {
+                @Override
+                public void onPMessage(String pattern, String channel, String message) {
+                    CacheMetricsUtils.incr(CacheMetricsUtils.LOCK_NOTIFY_RECEIVED);
+                    wakeUp(channel.substring(channelPrefix.length()));
+                }
+
+                @Override
+                public void onPSubscribe(String pattern, int subscribedChannels) {
+                    wakeUpAll();
+                }
+            };
+            pubSub = current;
+            try {
+                redisService.psubscribe(current, channelPrefix + "*");
+            } catch (RuntimeException e) {
+                if(running){
+                    log.error("[starter][cache][lockNotify]订阅锁释放消息断开，稍后重连!channel:" + channelPrefix + "*", e);
+                }
+            }
+            if(!running){
+                return;
+            }
+            try {
+                Thread.sleep(RECONNECT_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 停止订阅
+     */
+    public void shutdown(){
+        running = false;
+        JedisPubSub current = pubSub;
+        if(current != null && current.isSubscribed()){
+            try {
+                current.punsubscribe();
+            } catch (RuntimeException e) {
+                // 连接已断开
+            }
+        }
+        if(subscriber != null){
+            subscriber.interrupt();
+        }
+    }
+
+    public String getChannelPrefix() {
+        return channelPrefix;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 同一个锁的本地等待者
+     */
+    private static final class Waiters {
+
+        /**
+         * 等待线程数，仅在waitersMap.compute内修改
+         */
+        private int count;
+
+        /**
+         * 释放通知版本，每次通知加1
+         */
+        private long version;
+
+        synchronized long version(){
+            return version;
+        }
+
+        synchronized void signal(){
+            version++;
+            notify();
+        }
+
+        synchronized void signalAll(){
+            version++;
+            notifyAll();
+        }
+
+        /**
+         * 等待释放通知，加锁后已有通知时立即返回
+         * @param seenVersion 加锁前的版本
+         * @param timeoutMillis
+         * @throws InterruptedException
+         */
+        synchronized void await(long seenVersion, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while (version == seenVersion && remaining > 0){
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.model.RedisScript;
+import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.utils.CacheMetricsUtils;
+import cn.soilove.cache.utils.CacheStarterCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁的持有记录与租约续期
+ * <pre>
+ *     每次加锁使用唯一的持有者令牌作为锁的值，记录本节点持有的锁；
+ *     开启续期的锁由共享的调度线程定时续期：每次检查时将到期(已过租约的1/3)的锁合并为一个批量命令，
+ *     每个节点一个管道，逐个执行"令牌一致时PEXPIRE"脚本(EVALSHA)，令牌不一致说明锁已过期或被他人持有，不续期并移除记录；
+ *     解锁使用"令牌一致时DEL"脚本，锁过期后被他人持有时不会误删；
+ *     可重入锁在redis中为hash(令牌 -> 次数)，持有线程在租约内再次加锁时仅增加本地持有次数；
+ *     持有线程仅用于可重入计数，其他线程解锁时接管后按令牌释放
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][lockWatchdog]")
+public class LockWatchdog implements SmartInitializingSingleton {
+
+    /**
+     * 未注入时使用，仅记录持有者令牌，不续期
+     */
+    public static final LockWatchdog NONE = new LockWatchdog(0);
+
+    /**
+     * 持有者令牌一致时续期，返回1-续期成功，0-锁已不属于当前持有者
+     * 普通锁为字符串(值为令牌)，可重入锁为hash(令牌 -> 次数)
+     */
+    public static final RedisScript RENEW_SCRIPT = new RedisScript(
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if (t == 'string' and redis.call('get', KEYS[1]) == ARGV[1]) " +
+            "or (t == 'hash' and redis.call('hexists', KEYS[1], ARGV[1]) == 1) then " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2]) end " +
+            "return 0");
+
+    /**
+     * 持有者令牌一致时释放，可重入锁次数减1，减到0时删除，返回1-已删除，0-锁已过期、不属于当前持有者或仍被重入持有
+     */
+    public static final RedisScript RELEASE_SCRIPT = new RedisScript(
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if t == 'string' and redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+            "if t == 'hash' and redis.call('hexists', KEYS[1], ARGV[1]) == 1 then " +
+            "if redis.call('hincrby', KEYS[1], ARGV[1], -1) > 0 then return 0 end " +
+            "return redis.call('del', KEYS[1]) end " +
+            "return 0");
+
+    /**
+     * 可重入锁加锁：锁不存在或已由该令牌持有时次数加1并设置超时时间，返回1-加锁成功，0-已被他人持有
+     */
+    public static final RedisScript REENTRANT_LOCK_SCRIPT = new RedisScript(
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if t == 'none' or (t == 'hash' and redis.call('hexists', KEYS[1], ARGV[1]) == 1) then " +
+            "redis.call('hincrby', KEYS[1], ARGV[1], 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "return 1 end " +
+            "return 0");
+
+    /**
+     * 是否由该令牌持有，返回1-是，0-否
+     */
+    public static final RedisScript OWNER_SCRIPT = new RedisScript(
+            "local t = redis.call('type', KEYS[1]).ok " +
+            "if t == 'string' and redis.call('get', KEYS[1]) == ARGV[1] then return 1 end " +
+            "if t == 'hash' then return redis.call('hexists', KEYS[1], ARGV[1]) end " +
+            "return 0");
+
+    @Autowired
+    private RedisService redisService;
+
+    /**
+     * 本节点持有的锁
+     * key=锁key
+     * value=租约
+     */
+    private final Map<String, Lease> leaseMap = new ConcurrentHashMap<>();
+
+    /**
+     * 续期检查间隔 - 单位:毫秒
+     */
+    private final long interval;
+
+    /**
+     * 续期调度线程，检查间隔为0时不创建
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param interval 续期检查间隔 - 单位:毫秒，0不续期
+     */
+    public LockWatchdog(long interval) {
+        this.interval = interval;
+        if(interval <= 0){
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "easy-cache-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::renewAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 容器初始化完成后预加载锁脚本，失败时在首次使用时加载
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            for(RedisScript script : new RedisScript[]{RENEW_SCRIPT, RELEASE_SCRIPT, REENTRANT_LOCK_SCRIPT, OWNER_SCRIPT}){
+                redisService.scriptLoad(script.getScript());
+            }
+        } catch (RuntimeException e) {
+            log.warn("[starter][cache][lockWatchdog]预加载锁脚本失败，首次使用时加载!msg:" + e.getMessage());
+        }
+    }
+
+    /**
+     * 生成持有者令牌
+     * @return
+     */
+    public static String newToken(){
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * 加锁前校验续期锁的租约时间
+     * 锁在上次续期后经过租约的1/3才到期，最晚再过一个检查间隔才续期，租约时间不大于1.5倍检查间隔时锁可能在续期前过期
+     * @param leaseMillis 锁超时时间 - 单位:毫秒
+     * @param renew 是否自动续期
+     */
+    public void checkLease(long leaseMillis, boolean renew){
+        if(renew && scheduler != null && leaseMillis * 2 <= interval * 3){
+            throw new CacheStarterException(CacheStarterCode.LOCK_ERROR.getCode(), "[starter][cache]开启续期的锁超时时间需大于1.5倍续期检查间隔!leaseMillis:" + leaseMillis + "，interval:" + interval);
+        }
+    }
+
+    /**
+     * 加锁成功后记录，当前线程为持有线程
+     * @param lockKey 锁key
+     * @param token 持有者令牌
+     * @param leaseMillis 锁超时时间 - 单位:毫秒
+     * @param renew 是否自动续期
+     */
+    public void hold(String lockKey, String token, long leaseMillis, boolean renew){
+        leaseMap.put(lockKey, new Lease(token, leaseMillis, renew && scheduler != null));
+    }
+
+    /**
+     * 可重入锁：当前线程已持有且租约未过期时持有次数加1
+     * 包括以非可重入方式加的锁(redis中为字符串)，否则持有线程会与自己持有的锁竞争
+     * @param lockKey
+     * @return true-已重入，无需访问redis
+     */
+    public boolean reenter(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        if(lease == null || lease.holder != Thread.currentThread() || remaining(lease) <= 0){
+            return false;
+        }
+        lease.holds++;
+        return true;
+    }
+
+    /**
+     * 可重入锁：当前线程重入持有时持有次数减1
+     * @param lockKey
+     * @return true-仍被当前线程持有，无需释放redis锁
+     */
+    public boolean exit(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        if(lease == null || lease.holder != Thread.currentThread() || lease.holds <= 1){
+            return false;
+        }
+        lease.holds--;
+        return true;
+    }
+
+    /**
+     * 获取本节点持有的锁的令牌
+     * @param lockKey
+     * @return 未持有时为空
+     */
+    public String token(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        return lease == null ? null : lease.token;
+    }
+
+    /**
+     * 获取本节点持有的锁的剩余租约时间，开启续期的锁每次续期后重新计算
+     * @param lockKey
+     * @return 单位:毫秒，未持有或已过期时为0
+     */
+    public long remaining(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        return lease == null ? 0 : remaining(lease);
+    }
+
+    private static long remaining(Lease lease){
+        return Math.max(0, lease.renewedAt + lease.leaseMillis - System.currentTimeMillis());
+    }
+
+    /**
+     * 接管本节点持有的锁，当前线程成为持有线程，用于其他线程解锁，移交给本地排队线程期间不接管
+     * @param lockKey
+     * @return 持有者令牌，未持有或已移交时为空
+     */
+    public String adopt(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        if(lease == null || lease.holder == null){
+            return null;
+        }
+        lease.holder = Thread.currentThread();
+        return lease.token;
+    }
+
+    /**
+     * 持有线程将锁移交给本地排队线程，移交期间没有持有线程，由接手线程续期后重新记录
+     * @param lockKey
+     */
+    public void handOver(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        if(lease != null && lease.holder == Thread.currentThread()){
+            lease.holder = null;
+        }
+    }
+
+    /**
+     * 获取已移交的锁的令牌
+     * @param lockKey
+     * @return 未持有或未移交时为空
+     */
+    public String handedOver(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        return lease != null && lease.holder == null ? lease.token : null;
+    }
+
+    /**
+     * 释放锁前移除记录，停止续期，仅持有线程或已移交的锁可以释放
+     * @param lockKey
+     * @return 持有者令牌，未持有或由其他线程持有时为空
+     */
+    public String release(String lockKey){
+        Lease lease = leaseMap.get(lockKey);
+        if(lease == null || (lease.holder != null && lease.holder != Thread.currentThread())){
+            return null;
+        }
+        return leaseMap.remove(lockKey, lease) ? lease.token : null;
+    }
+
+    /**
+     * 强制解锁时移除记录，不校验持有线程
+     * @param lockKey
+     * @return 持有者令牌，未持有时为空
+     */
+    public String forceRelease(String lockKey){
+        Lease lease = leaseMap.remove(lockKey);
+        return lease == null ? null : lease.token;
+    }
+
+    /**
+     * 续期全部到期的锁，一次批量命令
+     */
+    private void renewAll(){
+        long now = System.currentTimeMillis();
+        List<String> lockKeys = new ArrayList<>();
+        List<Lease> leases = new ArrayList<>();
+        RedisBatch batch = new RedisBatch();
+        leaseMap.forEach((lockKey, lease) -> {
+            if(lease.renew && now - lease.renewedAt >= lease.leaseMillis / 3){
+                lockKeys.add(lockKey);
+                leases.add(lease);
+                batch.evalsha(RENEW_SCRIPT, lockKey, lease.token, String.valueOf(lease.leaseMillis));
+            }
+        });
+        if(batch.isEmpty()){
+            return;
+        }
+        List<Object> results;
+        try {
+            results = redisService.executeBatch(batch);
+        } catch (RuntimeException e) {
+            log.error("[starter][cache][lockWatchdog]锁续期异常，下次检查重试!keys:" + lockKeys, e);
+            return;
+        }
+        for(int i = 0; i < results.size(); i++){
+            Object res = results.get(i);
+            Lease lease = leases.get(i);
+            if(res instanceof JedisNoScriptException){
+                // 节点未缓存脚本，单独执行并加载
+                try {
+                    res = redisService.evalsha(RENEW_SCRIPT, lockKeys.get(i), lease.token, String.valueOf(lease.leaseMillis));
+                } catch (RuntimeException e) {
+                    res = e;
+                }
+            }
+            if(res instanceof Long && (Long) res == 1){
+                lease.renewedAt = now;
+                CacheMetricsUtils.incr(CacheMetricsUtils.LOCK_LEASE_RENEWED);
+            } else if(res instanceof Long){
+                // 锁已过期或被他人持有
+                leaseMap.remove(lockKeys.get(i), lease);
+                CacheMetricsUtils.incr(CacheMetricsUtils.LOCK_LEASE_LOST);
+                log.warn("[starter][cache][lockWatchdog]锁已不属于本节点，停止续期!key:" + lockKeys.get(i));
+            } else {
+                log.error("[starter][cache][lockWatchdog]锁续期失败，下次检查重试!key:" + lockKeys.get(i) + "，msg:" + res);
+            }
+        }
+    }
+
+    /**
+     * 停止续期
+     */
+    public void shutdown(){
+        if(scheduler != null){
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 租约
+     */
+    private static final class Lease {
+
+        /**
+         * 持有者令牌
+         */
+        private final String token;
+
+        /**
+         * 锁超时时间 - 单位:毫秒
+         */
+        private final long leaseMillis;
+
+        /**
+         * 是否自动续期
+         */
+        private final boolean renew;
+
+        /**
+         * 持有线程，移交给本地排队线程期间为空
+         */
+        private volatile Thread holder = Thread.currentThread();
+
+        /**
+         * 持有线程的持有次数，仅持有线程修改
+         */
+        private int holds = 1;
+
+        /**
+         * 最近续期时间
+         */
+        private volatile long renewedAt = System.currentTimeMillis();
+
+        private Lease(String token, long leaseMillis, boolean renew) {
+            this.token = token;
+            this.leaseMillis = leaseMillis;
+            this.renew = renew;
+        }
+    }
+}
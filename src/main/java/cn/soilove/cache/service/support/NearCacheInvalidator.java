@@ -0,0 +1,258 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.service.RedisService;
+import cn.soilove.cache.utils.CacheMetricsUtils;
+import cn.soilove.cache.utils.CaffeineCacheUtils;
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多级缓存失效广播
+ * 本地一级缓存的key为redis缓存key，redis缓存删除时通过发布/订阅通知所有节点移除本地副本；
+ * 配置redis服务端跟踪时，由redis在key被任意客户端修改后推送失效消息
+ **/
+@Slf4j(topic = "[starter][cache][nearCache]")
+public class NearCacheInvalidator implements SmartInitializingSingleton {
+
+    /**
+     * 订阅断开后的重连间隔 - 单位:毫秒
+     */
+    private static final long RECONNECT_INTERVAL = 1000;
+
+    @Autowired
+    private RedisService redisService;
+
+    /**
+     * 失效消息频道
+     */
+    private final String channel;
+
+    /**
+     * 是否开启广播，关闭时仅清理本节点的本地缓存
+     */
+    private final boolean enabled;
+
+    /**
+     * 多级缓存使用的本地缓存命名空间
+     */
+    private final Set<String> namespaces = ConcurrentHashMap.newKeySet();
+
+    /**
+     * redis服务端跟踪，为空时使用发布/订阅广播
+     */
+    private volatile NearCacheTracker tracker;
+
+    private volatile boolean running;
+
+    private volatile JedisPubSub pubSub;
+
+    private Thread subscriber;
+
+    /**
+     * @param channel 失效消息频道
+     * @param enabled 是否开启广播
+     */
+    public NearCacheInvalidator(String channel, boolean enabled) {
+        this.channel = channel;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 登记多级缓存的本地缓存命名空间
+     * @param namespace
+     */
+    public void register(String namespace){
+        namespaces.add(namespace);
+    }
+
+    /**
+     * 删除redis缓存后调用：清理本节点的本地缓存，并通知其他节点，通知失败不影响删除结果
+     * @param redisService
+     * @param keys redis缓存key
+     */
+    public void broadcast(RedisService redisService, String... keys){
+        if(keys == null || keys.length == 0){
+            return;
+        }
+        List<String> keyList = Arrays.asList(keys);
+        invalidateLocal(keyList);
+        // 服务端跟踪模式下由redis推送失效消息，无需发布
+        if(!enabled || tracker != null){
+            return;
+        }
+        try {
+            redisService.publish(channel, JSON.toJSONString(keyList));
+            CacheMetricsUtils.incr(CacheMetricsUtils.NEAR_CACHE_PUBLISHED);
+        } catch (RuntimeException e) {
+            log.error("[starter][cache][nearCache]发布缓存失效消息异常!keys:" + keyList, e);
+        }
+    }
+
+    /**
+     * 清理本节点的本地缓存
+     * @param keys redis缓存key
+     */
+    public void invalidateLocal(Collection<String> keys){
+        for(String namespace : namespaces){
+            for(String key : keys){
+                if(key != null){
+                    CaffeineCacheUtils.del(namespace, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清理本节点的全部多级缓存
+     */
+    public void invalidateAll(){
+        for(String namespace : namespaces){
+            CaffeineCacheUtils.del(namespace);
+        }
+    }
+
+    /**
+     * 容器初始化完成后启动订阅线程
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if(!enabled){
+            return;
+        }
+        running = true;
+        subscriber = new Thread(this::subscribe, "easy-cache-near-invalidate");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    /**
+     * 订阅失效消息，连接断开后重连；重连期间可能遗漏消息，重新订阅成功时清理全部多级缓存
+     */
+    private void subscribe(){
+        boolean[] subscribed = {false};
+        Runnable onSubscribe = () -> {
+            if(subscribed[0]){
+                invalidateAll();
+            }
+            subscribed[0] = true;
+        };
+        while (running){
+            NearCacheTracker currentTracker = tracker;
+            if(currentTracker != null){
+                try {
+                    currentTracker.listen(keys -> {
+                        invalidateLocal(keys);
+                        CacheMetricsUtils.add(CacheMetricsUtils.NEAR_CACHE_RECEIVED, keys.size());
+                    }, this::invalidateAll, onSubscribe);
+                } catch (JedisDataException e) {
+                    // redis版本不支持等命令错误，回退为发布/订阅广播
+                    log.error("[starter][cache][nearCache]开启redis服务端跟踪失败，回退为发布/订阅广播!", e);
+                    tracker = null;
+                    currentTracker.shutdown();
+                    continue;
+                } catch (RuntimeException e) {
+                    if(running){
+                        log.error("[starter][cache][nearCache]跟踪连接断开，稍后重连!", e);
+                    }
+                }
+                if(!sleepBeforeReconnect()){
+                    return;
+                }
+                continue;
+            }
+
+            JedisPubSub current = new JedisPubSub() {
+                @Override
+                public void onMessage(String channel, String message) {
+                    try {
+                        invalidateLocal(JSON.parseArray(message, String.class));
+                        CacheMetricsUtils.incr(CacheMetricsUtils.NEAR_CACHE_RECEIVED);
+                    } catch (RuntimeException e) {
+                        log.error("[starter][cache][nearCache]处理缓存失效消息异常!message:" + message, e);
+                    }
+                }
+
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    onSubscribe.run();
+                }
+            };
+            pubSub = current;
+            try {
+                redisService.subscribe(current, channel);
+            } catch (RuntimeException e) {
+                if(running){
+                    log.error("[starter][cache][nearCache]订阅缓存失效消息断开，稍后重连!channel:" + channel, e);
+                }
+            }
+            if(!sleepBeforeReconnect()){
+                return;
+            }
+        }
+    }
+
+    /**
+     * 等待重连
+     * @return false-已停止
+     */
+    private boolean sleepBeforeReconnect(){
+        if(!running){
+            return false;
+        }
+        try {
+            Thread.sleep(RECONNECT_INTERVAL);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 停止订阅
+     */
+    public void shutdown(){
+        running = false;
+        NearCacheTracker currentTracker = tracker;
+        if(currentTracker != null){
+            currentTracker.shutdown();
+        }
+        JedisPubSub current = pubSub;
+        if(current != null && current.isSubscribed()){
+            try {
+                current.unsubscribe();
+            } catch (RuntimeException e) {
+                // 连接已断开
+            }
+        }
+        if(subscriber != null){
+            subscriber.interrupt();
+        }
+    }
+
+    /**
+     * 使用redis服务端跟踪代替发布/订阅广播
+     * @param tracker
+     */
+    public void setTracker(NearCacheTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
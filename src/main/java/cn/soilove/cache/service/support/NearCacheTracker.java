@@ -0,0 +1,211 @@
+package cn.soilove.cache.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.RedisOutputStream;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 基于redis服务端辅助客户端缓存(CLIENT TRACKING，redis 6+)的多级缓存失效监听
+ * <pre>
+ *     使用两个独立连接：监听连接订阅 __redis__:invalidate 频道，跟踪连接以BCAST模式开启跟踪并重定向到监听连接，
+ *     任意客户端修改匹配前缀的key时，redis向监听连接推送失效key，无需写入方发布消息
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][nearCache]")
+public class NearCacheTracker {
+
+    /**
+     * redis失效消息频道
+     */
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+
+    /**
+     * 心跳间隔 - 单位:秒
+     */
+    private static final long HEARTBEAT_INTERVAL = 10;
+
+    /**
+     * 监听连接读取超时 - 单位:毫秒，超过3个心跳间隔未收到任何回复时视为连接断开
+     */
+    private static final int LISTEN_READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(HEARTBEAT_INTERVAL * 3);
+
+    /**
+     * redis地址，sentinel模式下为当前主节点
+     */
+    private final Supplier<HostAndPort> hostSupplier;
+
+    private final String password;
+
+    private final int timeout;
+
+    /**
+     * 跟踪的key前缀，为空时跟踪全部key
+     */
+    private final List<String> prefixes;
+
+    /**
+     * 心跳线程，任一连接断开时关闭监听连接，触发重连
+     */
+    private final ScheduledExecutorService heartbeat;
+
+    private volatile Jedis listenJedis;
+
+    private volatile Jedis trackingJedis;
+
+    /**
+     * 监听连接已进入订阅状态，此后才能发送心跳
+     */
+    private volatile boolean subscribed;
+
+    /**
+     * @param hostSupplier redis地址
+     * @param password 密码
+     * @param timeout 连接超时时间 - 单位:毫秒
+     * @param prefixes 跟踪的key前缀
+     */
+    public NearCacheTracker(Supplier<HostAndPort> hostSupplier, String password, int timeout, List<String> prefixes) {
+        this.hostSupplier = hostSupplier;
+        this.password = password;
+        this.timeout = timeout;
+        this.prefixes = prefixes == null ? Collections.emptyList() : prefixes;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "easy-cache-near-tracking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleWithFixedDelay(this::ping, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 建立连接并开启跟踪，阻塞读取失效消息，直到连接断开
+     * @param onKeys 收到失效key
+     * @param onFlush 收到清空全部的通知(FLUSHALL/FLUSHDB)
+     * @param onTracking 跟踪开启成功
+     */
+    public void listen(Consumer<List<String>> onKeys, Runnable onFlush, Runnable onTracking){
+        HostAndPort host = hostSupplier.get();
+        Jedis listen = connect(host);
+        Jedis tracking = null;
+        try {
+            listenJedis = listen;
+            Long clientId = (Long) listen.sendCommand(Protocol.Command.CLIENT, "ID");
+
+            tracking = connect(host);
+            trackingJedis = tracking;
+            tracking.sendCommand(Protocol.Command.CLIENT, trackingArgs(clientId));
+
+            // RESP2下失效消息的内容为key数组，JedisPubSub会按字符串读取，因此直接读取原始回复
+            listen.getClient().subscribe(SafeEncoder.encode(INVALIDATE_CHANNEL));
+            listen.getClient().getObjectMultiBulkReply();
+            // 订阅状态下心跳PING的回复为["pong", ""]，读取超时说明连接已失效
+            listen.getClient().setSoTimeout(LISTEN_READ_TIMEOUT);
+            listen.getClient().rollbackTimeout();
+            subscribed = true;
+            onTracking.run();
+
+            while (true){
+                List<Object> reply = listen.getClient().getUnflushedObjectMultiBulkReply();
+                if(reply.size() < 3 || !"message".equals(SafeEncoder.encode((byte[]) reply.get(0)))){
+                    continue;
+                }
+                Object payload = reply.get(2);
+                if(payload instanceof List){
+                    List<String> keys = new ArrayList<>();
+                    for(Object key : (List<?>) payload){
+                        keys.add(SafeEncoder.encode((byte[]) key));
+                    }
+                    onKeys.accept(keys);
+                } else if(payload == null){
+                    onFlush.run();
+                }
+            }
+        } finally {
+            subscribed = false;
+            listenJedis = null;
+            trackingJedis = null;
+            close(tracking);
+            close(listen);
+        }
+    }
+
+    /**
+     * 停止监听
+     */
+    public void shutdown(){
+        heartbeat.shutdownNow();
+        close(trackingJedis);
+        Jedis listen = listenJedis;
+        if(listen != null){
+            listen.getClient().disconnect();
+        }
+    }
+
+    /**
+     * 跟踪连接和监听连接心跳，失败时断开监听连接
+     * 监听连接由监听线程阻塞读取，心跳只写入PING，回复由监听线程读取并忽略
+     */
+    private void ping(){
+        Jedis tracking = trackingJedis;
+        Jedis listen = listenJedis;
+        if(tracking == null || listen == null || !subscribed){
+            return;
+        }
+        try {
+            tracking.ping();
+            RedisOutputStream output = new RedisOutputStream(listen.getClient().getSocket().getOutputStream());
+            Protocol.sendCommand(output, Protocol.Command.PING);
+            output.flush();
+        } catch (RuntimeException | IOException e) {
+            log.warn("[starter][cache][nearCache]跟踪连接心跳失败，重新建立跟踪!msg:" + e.getMessage());
+            listen.getClient().disconnect();
+        }
+    }
+
+    /**
+     * CLIENT TRACKING ON REDIRECT clientId BCAST [PREFIX prefix ...]
+     * @param clientId
+     * @return
+     */
+    private String[] trackingArgs(Long clientId){
+        List<String> args = new ArrayList<>();
+        Collections.addAll(args, "TRACKING", "ON", "REDIRECT", String.valueOf(clientId), "BCAST");
+        for(String prefix : prefixes){
+            args.add("PREFIX");
+            args.add(prefix);
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private Jedis connect(HostAndPort host){
+        Jedis jedis = new Jedis(host.getHost(), host.getPort(), timeout);
+        if(!StringUtils.isEmpty(password)){
+            jedis.auth(password);
+        }
+        return jedis;
+    }
+
+    private static void close(Jedis jedis){
+        if(jedis != null){
+            try {
+                jedis.close();
+            } catch (RuntimeException e) {
+                // 连接已断开
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.utils.ExceptionStringUtils;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * redis批量命令执行
+ * <pre>
+ *     集群模式：按key的slot定位节点，每个节点一个管道并行发送，结果按命令顺序合并；
+ *     节点返回MOVED/ASK重定向的命令通过JedisCluster重新执行(自动刷新slot缓存)；
+ *     节点连接异常时无法确认哪些命令已执行，该节点的命令均不重试，结果为连接异常
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][batch]")
+public class RedisBatchExecutor {
+
+    /**
+     * 节点并行执行线程池，线程池已满时由调用线程执行
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param threads 并行线程数
+     */
+    public RedisBatchExecutor(int threads) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "redis-batch-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 使用一个管道执行
+     * @param jedis
+     * @param commands
+     * @return 按命令顺序的结果，失败的命令为异常对象
+     */
+    public static List<Object> pipeline(Jedis jedis, List<RedisBatch.Command> commands) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<Object>> responses = new ArrayList<>(commands.size());
+        for (RedisBatch.Command command : commands) {
+            responses.add(pipeline.sendCommand(command.getKey(), command.getCommand(), command.getArgs()));
+        }
+        pipeline.sync();
+
+        List<Object> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            try {
+                results.add(commands.get(i).build(responses.get(i).get()));
+            } catch (JedisDataException e) {
+                results.add(e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 集群模式执行
+     * @param cluster
+     * @param batch
+     * @return 按命令顺序的结果，失败的命令为异常对象(JedisDataException，节点连接异常时为JedisConnectionException)
+     */
+    public List<Object> execute(JedisCluster cluster, RedisBatch batch) {
+        List<RedisBatch.Command> commands = batch.getCommands();
+        Object[] results = new Object[commands.size()];
+        if (commands.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        // 按节点分组
+        Map<String, NodeBatch> nodeBatches = new LinkedHashMap<>();
+        Map<Integer, NodeBatch> slotBatches = new HashMap<>();
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                int slot = JedisClusterCRC16.getSlot(commands.get(i).getKey());
+                NodeBatch nodeBatch = slotBatches.get(slot);
+                if (nodeBatch == null) {
+                    Jedis connection = cluster.getConnectionFromSlot(slot);
+                    Client client = connection.getClient();
+                    String node = client.getHost() + ":" + client.getPort();
+                    nodeBatch = nodeBatches.get(node);
+                    if (nodeBatch == null) {
+                        nodeBatch = new NodeBatch(connection);
+                        nodeBatches.put(node, nodeBatch);
+                    } else {
+                        connection.close();
+                    }
+                    slotBatches.put(slot, nodeBatch);
+                }
+                nodeBatch.indexes.add(i);
+                nodeBatch.commands.add(commands.get(i));
+            }
+        } catch (RuntimeException e) {
+            nodeBatches.values().forEach(nodeBatch -> nodeBatch.connection.close());
+            throw e;
+        }
+
+        // 每个节点一个管道并行执行，最后一个节点在调用线程执行
+        List<NodeBatch> batches = new ArrayList<>(nodeBatches.values());
+        List<Future<?>> futures = new ArrayList<>(batches.size() - 1);
+        for (int i = 0; i < batches.size() - 1; i++) {
+            NodeBatch nodeBatch = batches.get(i);
+            futures.add(executor.submit(() -> nodeBatch.execute(cluster, results)));
+        }
+        batches.get(batches.size() - 1).execute(cluster, results);
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheStarterException("[错误]redis批量命令执行被中断");
+            } catch (ExecutionException e) {
+                throw new CacheStarterException("[错误]redis批量命令执行异常，msg=" + ExceptionStringUtils.getStackTraceAsString(e));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 通过JedisCluster执行单条命令，自动处理重定向
+     * @param cluster
+     * @param command
+     * @return
+     */
+    private static Object execute(JedisCluster cluster, RedisBatch.Command command) {
+        try {
+            return command.build(cluster.sendCommand(command.getKey(), command.getCommand(), command.getArgs()));
+        } catch (JedisDataException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 同一节点的命令
+     */
+    private static final class NodeBatch {
+        private final Jedis connection;
+        private final List<Integer> indexes = new ArrayList<>();
+        private final List<RedisBatch.Command> commands = new ArrayList<>();
+
+        private NodeBatch(Jedis connection) {
+            this.connection = connection;
+        }
+
+        private void execute(JedisCluster cluster, Object[] results) {
+            List<Object> nodeResults;
+            try {
+                nodeResults = pipeline(connection, commands);
+            } catch (JedisConnectionException e) {
+                // 连接断开前部分命令可能已执行，重试会导致INCRBY、RPUSH等非幂等命令重复执行，未确认的命令均返回连接异常
+                log.error("[starter][cache][batch]节点管道执行异常，未确认的命令不重试!node:" + connection.getClient().getHost() + ":" + connection.getClient().getPort(), e);
+                for (Integer index : indexes) {
+                    results[index] = e;
+                }
+                return;
+            } finally {
+                connection.close();
+            }
+            for (int i = 0; i < commands.size(); i++) {
+                Object result = nodeResults.get(i);
+                // 重定向的命令未在该节点执行，重新路由
+                if (result instanceof JedisRedirectionException) {
+                    result = RedisBatchExecutor.execute(cluster, commands.get(i));
+                }
+                results[indexes.get(i)] = result;
+            }
+        }
+    }
+}
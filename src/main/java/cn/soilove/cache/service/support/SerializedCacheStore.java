@@ -0,0 +1,235 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyCacheValue;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.serializer.CacheSerializer;
+import cn.soilove.cache.serializer.CacheSerializers;
+import cn.soilove.cache.serializer.FastjsonCacheSerializer;
+import cn.soilove.cache.service.RedisService;
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 序列化对象缓存，直接读写byte[]
+ * <pre>
+ *     格式：标记(1字节) + 标志位(1字节) + 序列化器类型标识(1字节) + [重建耗时,失效时间,软失效时间(各8字节)] + [压缩前长度(4字节)] + 内容
+ *     内容超过压缩阈值时使用Deflate压缩；
+ *     fastjson序列化且未记录元数据、未压缩时直接写入json，与旧版本格式一致；
+ *     读取时兼容旧版本的json字符串格式
+ * </pre>
+ **/
+@Slf4j(topic = "[starter][cache][easyCache]")
+class SerializedCacheStore implements EasyCacheStore<Object> {
+
+    /**
+     * 格式标记，json文本不会以此字节开头
+     */
+    private static final byte MAGIC = (byte) 0xEC;
+
+    /**
+     * 标志位 - 记录元数据
+     */
+    private static final byte FLAG_META = 1;
+
+    /**
+     * 标志位 - 内容已压缩
+     */
+    private static final byte FLAG_COMPRESSED = 2;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final int META_LENGTH = 24;
+
+    private static final int ORIGINAL_LENGTH_LENGTH = 4;
+
+    private static final byte[] NULL_VALUE_BYTES = SafeEncoder.encode(RedisService.NULL_VALUE);
+
+    private final RedisService redisService;
+
+    private final CacheSerializer serializer;
+
+    private final Type type;
+
+    /**
+     * @param redisService
+     * @param serializer 写入使用的序列化器
+     * @param type 缓存值的声明类型
+     */
+    SerializedCacheStore(RedisService redisService, CacheSerializer serializer, Type type) {
+        this.redisService = redisService;
+        this.serializer = serializer;
+        this.type = type;
+    }
+
+    @Override
+    public RedisService getRedisService() {
+        return redisService;
+    }
+
+    @Override
+    public EasyCacheValue<Object> read(String key) {
+        return decodeValue(key, redisService.get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public void write(String key, Object value, EasyCacheOptions options, boolean meta, long delta, long expireAt, long softExpireAt) {
+        redisService.set(SafeEncoder.encode(key), encode(value, options, meta, delta, expireAt, softExpireAt), options.getSeconds());
+    }
+
+    @Override
+    public List<EasyCacheValue<Object>> readAll(List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for(int i = 0; i < rawKeys.length; i++){
+            rawKeys[i] = SafeEncoder.encode(keys.get(i));
+        }
+        List<byte[]> res = redisService.mget(rawKeys);
+        List<EasyCacheValue<Object>> values = new ArrayList<>(keys.size());
+        for(int i = 0; i < rawKeys.length; i++){
+            values.add(decodeValue(keys.get(i), res.get(i)));
+        }
+        return values;
+    }
+
+    @Override
+    public void writeAll(Map<String, Object> values, EasyCacheOptions options) {
+        RedisBatch batch = new RedisBatch();
+        values.forEach((key, value) -> {
+            if(value == null){
+                batch.set(SafeEncoder.encode(key), NULL_VALUE_BYTES, options.getNullSeconds());
+            } else {
+                batch.set(SafeEncoder.encode(key), encode(value, options, false, 0, 0, 0), options.getSeconds());
+            }
+        });
+        RedisBatch.checkResults(redisService.executeBatch(batch));
+    }
+
+    @Override
+    public boolean isEmpty(Object value) {
+        return value == null;
+    }
+
+    /**
+     * 解码读取到的缓存内容，无法读取时视为未命中
+     * @param key
+     * @param res
+     * @return 未命中返回null
+     */
+    private EasyCacheValue<Object> decodeValue(String key, byte[] res) {
+        if(res == null || res.length == 0){
+            return null;
+        }
+        EasyCacheValue<Object> cacheValue = new EasyCacheValue<>();
+        // 判断是否为空值
+        if(Arrays.equals(NULL_VALUE_BYTES, res)){
+            return cacheValue;
+        }
+        try {
+            if(res[0] == MAGIC && res.length >= HEADER_LENGTH){
+                decode(res, cacheValue);
+            } else {
+                // 旧版本json字符串格式
+                EasyCacheValue<String> stringValue = StringCacheStore.decode(new String(res, StandardCharsets.UTF_8));
+                cacheValue.setValue(JSON.parseObject(stringValue.getValue(), type));
+                cacheValue.setDelta(stringValue.getDelta());
+                cacheValue.setExpireAt(stringValue.getExpireAt());
+                cacheValue.setSoftExpireAt(stringValue.getSoftExpireAt());
+            }
+        } catch (RuntimeException e) {
+            // 无法读取时视为未命中，重新加载后覆盖
+            log.warn("[starter][cache][easyCache]缓存反序列化失败，重新加载!key:" + key + "，msg:" + e.getMessage());
+            return null;
+        }
+        return cacheValue;
+    }
+
+    /**
+     * 编码缓存内容
+     * @param value
+     * @param options
+     * @param meta
+     * @param delta
+     * @param expireAt
+     * @param softExpireAt
+     * @return
+     */
+    private byte[] encode(Object value, EasyCacheOptions options, boolean meta, long delta, long expireAt, long softExpireAt) {
+        byte[] payload = serializer.serialize(value, type);
+        int headerLength = HEADER_LENGTH + (meta ? META_LENGTH : 0);
+
+        // 超过阈值时压缩，头部预留标记和压缩前长度
+        int threshold = CacheCompressor.threshold(options.getCompressThreshold());
+        byte[] compressed = threshold > 0 && payload.length >= threshold ? CacheCompressor.compress(payload, headerLength + ORIGINAL_LENGTH_LENGTH) : null;
+
+        byte[] bytes;
+        if(compressed != null){
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            writeHeader(buffer, (byte) ((meta ? FLAG_META : 0) | FLAG_COMPRESSED), meta, delta, expireAt, softExpireAt);
+            buffer.putInt(payload.length);
+            bytes = compressed;
+        } else if(!meta && serializer.getTag() == FastjsonCacheSerializer.TAG){
+            bytes = payload;
+        } else {
+            ByteBuffer buffer = ByteBuffer.allocate(headerLength + payload.length);
+            writeHeader(buffer, meta ? FLAG_META : 0, meta, delta, expireAt, softExpireAt);
+            buffer.put(payload);
+            bytes = buffer.array();
+        }
+        return bytes;
+    }
+
+    /**
+     * 写入标记、标志位、序列化器类型标识和元数据
+     * @param buffer
+     * @param flags
+     * @param meta
+     * @param delta
+     * @param expireAt
+     * @param softExpireAt
+     */
+    private void writeHeader(ByteBuffer buffer, byte flags, boolean meta, long delta, long expireAt, long softExpireAt) {
+        buffer.put(MAGIC).put(flags).put(serializer.getTag());
+        if(meta){
+            buffer.putLong(delta).putLong(expireAt).putLong(softExpireAt);
+        }
+    }
+
+    /**
+     * 解码带标记的格式
+     * @param res
+     * @param cacheValue
+     */
+    private void decode(byte[] res, EasyCacheValue<Object> cacheValue) {
+        byte flags = res[1];
+        CacheSerializer tagSerializer = CacheSerializers.getByTag(res[2]);
+        if(tagSerializer == null){
+            throw new CacheStarterException("[错误]未注册的缓存序列化器，tag=" + (res[2] & 0xFF));
+        }
+        int offset = HEADER_LENGTH;
+        if((flags & FLAG_META) != 0){
+            ByteBuffer buffer = ByteBuffer.wrap(res, offset, META_LENGTH);
+            cacheValue.setDelta(buffer.getLong());
+            cacheValue.setExpireAt(buffer.getLong());
+            cacheValue.setSoftExpireAt(buffer.getLong());
+            offset += META_LENGTH;
+        }
+        if((flags & FLAG_COMPRESSED) != 0){
+            int originalLength = ByteBuffer.wrap(res, offset, ORIGINAL_LENGTH_LENGTH).getInt();
+            offset += ORIGINAL_LENGTH_LENGTH;
+            byte[] payload = CacheCompressor.decompress(res, offset, res.length - offset, originalLength);
+            cacheValue.setValue(tagSerializer.deserialize(payload, 0, originalLength, type));
+            return;
+        }
+        cacheValue.setValue(tagSerializer.deserialize(res, offset, res.length - offset, type));
+    }
+}
@@ -0,0 +1,137 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.model.EasyCacheOptions;
+import cn.soilove.cache.model.EasyCacheValue;
+import cn.soilove.cache.model.RedisBatch;
+import cn.soilove.cache.service.RedisService;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串缓存，元数据以前缀形式写入缓存内容
+ **/
+class StringCacheStore implements EasyCacheStore<String> {
+
+    /**
+     * 带元数据的缓存值前缀，格式：前缀 + 重建耗时,失效时间,软失效时间 + 分隔符 + 缓存内容
+     */
+    private static final String META_PREFIX = "\u0001EC:";
+
+    /**
+     * 元数据与缓存内容的分隔符
+     */
+    private static final char META_SEPARATOR = ':';
+
+    private final RedisService redisService;
+
+    StringCacheStore(RedisService redisService) {
+        this.redisService = redisService;
+    }
+
+    @Override
+    public RedisService getRedisService() {
+        return redisService;
+    }
+
+    @Override
+    public EasyCacheValue<String> read(String key) {
+        return decodeValue(redisService.get(key));
+    }
+
+    @Override
+    public void write(String key, String value, EasyCacheOptions options, boolean meta, long delta, long expireAt, long softExpireAt) {
+        redisService.set(key, meta ? encode(value, delta, expireAt, softExpireAt) : value, options.getSeconds());
+    }
+
+    @Override
+    public List<EasyCacheValue<String>> readAll(List<String> keys) {
+        List<String> res = redisService.mget(keys.toArray(new String[0]));
+        List<EasyCacheValue<String>> values = new ArrayList<>(keys.size());
+        for(String value : res){
+            values.add(decodeValue(value));
+        }
+        return values;
+    }
+
+    @Override
+    public void writeAll(Map<String, String> values, EasyCacheOptions options) {
+        RedisBatch batch = new RedisBatch();
+        values.forEach((key, value) -> {
+            if(value == null){
+                batch.set(key, RedisService.NULL_VALUE, options.getNullSeconds());
+            } else {
+                batch.set(key, value, options.getSeconds());
+            }
+        });
+        RedisBatch.checkResults(redisService.executeBatch(batch));
+    }
+
+    @Override
+    public boolean isEmpty(String value) {
+        return StringUtils.isEmpty(value);
+    }
+
+    /**
+     * 解码读取到的缓存内容
+     * @param res
+     * @return 未命中返回null
+     */
+    private static EasyCacheValue<String> decodeValue(String res){
+        if(StringUtils.isEmpty(res)){
+            return null;
+        }
+        // 判断是否为空值
+        if(RedisService.NULL_VALUE.equals(res)){
+            return new EasyCacheValue<>();
+        }
+        return decode(res);
+    }
+
+    /**
+     * 编码带元数据的缓存值
+     * @param value
+     * @param delta
+     * @param expireAt
+     * @param softExpireAt
+     * @return
+     */
+    private static String encode(String value, long delta, long expireAt, long softExpireAt){
+        return new StringBuilder(META_PREFIX.length() + value.length() + 48)
+                .append(META_PREFIX)
+                .append(delta).append(',').append(expireAt).append(',').append(softExpireAt)
+                .append(META_SEPARATOR)
+                .append(value)
+                .toString();
+    }
+
+    /**
+     * 解码缓存值，兼容不带元数据的旧格式
+     * @param res
+     * @return
+     */
+    static EasyCacheValue<String> decode(String res){
+        EasyCacheValue<String> cacheValue = new EasyCacheValue<>();
+        int end;
+        if(!res.startsWith(META_PREFIX) || (end = res.indexOf(META_SEPARATOR, META_PREFIX.length())) < 0){
+            cacheValue.setValue(res);
+            return cacheValue;
+        }
+        try {
+            String[] metas = res.substring(META_PREFIX.length(), end).split(",");
+            cacheValue.setDelta(Long.parseLong(metas[0]));
+            cacheValue.setExpireAt(Long.parseLong(metas[1]));
+            cacheValue.setSoftExpireAt(metas.length > 2 ? Long.parseLong(metas[2]) : 0);
+            cacheValue.setValue(res.substring(end + 1));
+        } catch (RuntimeException e) {
+            // 无法识别的元数据按旧格式处理
+            cacheValue.setDelta(0);
+            cacheValue.setExpireAt(0);
+            cacheValue.setSoftExpireAt(0);
+            cacheValue.setValue(res);
+        }
+        return cacheValue;
+    }
+}
@@ -0,0 +1,35 @@
+package cn.soilove.cache.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * ByteBuffer工具
+ **/
+public class ByteBufferUtils {
+
+    private ByteBufferUtils() {
+    }
+
+    /**
+     * 读取剩余内容，不改变position；堆内缓冲区且内容为整个数组时直接返回数组，不复制
+     * @param buffer
+     * @return
+     */
+    public static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset() + buffer.position();
+            if (offset == 0 && buffer.remaining() == array.length) {
+                return array;
+            }
+            return Arrays.copyOfRange(array, offset, offset + buffer.remaining());
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+package cn.soilove.cache.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存指标统计
+ **/
+public class CacheMetricsUtils {
+
+    /**
+     * 后台刷新 - 已提交
+     */
+    public static final String REFRESH_SCHEDULED = "redis.refresh.scheduled";
+
+    /**
+     * 后台刷新 - 同一key已在刷新中，合并
+     */
+    public static final String REFRESH_COALESCED = "redis.refresh.coalesced";
+
+    /**
+     * 后台刷新 - 线程池已满，跳过
+     */
+    public static final String REFRESH_SKIPPED = "redis.refresh.skipped";
+
+    /**
+     * 后台刷新 - 成功
+     */
+    public static final String REFRESH_SUCCESS = "redis.refresh.success";
+
+    /**
+     * 后台刷新 - 失败
+     */
+    public static final String REFRESH_FAILED = "redis.refresh.failed";
+
+    /**
+     * 压缩 - 次数
+     */
+    public static final String COMPRESS_COUNT = "redis.compress.count";
+
+    /**
+     * 压缩 - 压缩前字节数
+     */
+    public static final String COMPRESS_BYTES_IN = "redis.compress.bytes.in";
+
+    /**
+     * 压缩 - 压缩后字节数
+     */
+    public static final String COMPRESS_BYTES_OUT = "redis.compress.bytes.out";
+
+    /**
+     * 压缩 - 耗时纳秒
+     */
+    public static final String COMPRESS_NANOS = "redis.compress.nanos";
+
+    /**
+     * 压缩 - 压缩后未变小，按原内容写入
+     */
+    public static final String COMPRESS_SKIPPED = "redis.compress.skipped";
+
+    /**
+     * 解压 - 次数
+     */
+    public static final String DECOMPRESS_COUNT = "redis.decompress.count";
+
+    /**
+     * 解压 - 耗时纳秒
+     */
+    public static final String DECOMPRESS_NANOS = "redis.decompress.nanos";
+
+    /**
+     * 多级缓存 - 已发布失效消息
+     */
+    public static final String NEAR_CACHE_PUBLISHED = "local.near.published";
+
+    /**
+     * 多级缓存 - 已接收失效消息
+     */
+    public static final String NEAR_CACHE_RECEIVED = "local.near.received";
+
+    /**
+     * 分布式等待锁 - 已发布释放消息
+     */
+    public static final String LOCK_NOTIFY_PUBLISHED = "redis.lock.notify.published";
+
+    /**
+     * 分布式等待锁 - 已接收释放消息
+     */
+    public static final String LOCK_NOTIFY_RECEIVED = "redis.lock.notify.received";
+
+    /**
+     * 分布式锁 - 释放时移交给本地排队线程
+     */
+    public static final String LOCK_HANDOVER = "redis.lock.handover";
+
+    /**
+     * 分布式锁 - 租约续期成功
+     */
+    public static final String LOCK_LEASE_RENEWED = "redis.lock.lease.renewed";
+
+    /**
+     * 分布式锁 - 续期时锁已不属于本节点
+     */
+    public static final String LOCK_LEASE_LOST = "redis.lock.lease.lost";
+
+    /**
+     * 本地缓存 - 超出容量或内存预算淘汰次数，后接命名空间
+     */
+    public static final String LOCAL_EVICTION_SIZE = "local.eviction.size.";
+
+    /**
+     * 指标map
+     * key=指标名称
+     * value=计数
+     */
+    private static final Map<String, LongAdder> counterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 计数加1
+     * @param name
+     */
+    public static void incr(String name){
+        add(name, 1);
+    }
+
+    /**
+     * 计数增加指定数值
+     * @param name
+     * @param value
+     */
+    public static void add(String name, long value){
+        counterMap.computeIfAbsent(name, k -> new LongAdder()).add(value);
+    }
+
+    /**
+     * 获取计数
+     * @param name
+     * @return
+     */
+    public static long get(String name){
+        LongAdder adder = counterMap.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * 压缩率：压缩后字节数 / 压缩前字节数，未压缩时为0
+     * @return
+     */
+    public static double compressRatio(){
+        long in = get(COMPRESS_BYTES_IN);
+        return in == 0 ? 0 : (double) get(COMPRESS_BYTES_OUT) / in;
+    }
+
+    /**
+     * 获取全部指标
+     * @return
+     */
+    public static Map<String, Long> snapshot(){
+        Map<String, Long> map = new TreeMap<>();
+        counterMap.forEach((name, adder) -> map.put(name, adder.sum()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 重置全部指标
+     */
+    public static void reset(){
+        counterMap.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package cn.soilove.cache.utils;
+
+/**
+ * 本地缓存对象大小估算，用于按内存权重淘汰
+ **/
+public interface CacheObjectSizer {
+
+    /**
+     * 估算缓存项占用的堆内存
+     * @param key 缓存key
+     * @param value 缓存值
+     * @return 字节数
+     */
+    long sizeOf(Object key, Object value);
+}
@@ -1,12 +1,32 @@
 package cn.soilove.cache.utils;
 
+import cn.soilove.cache.config.CacheStarterException;
+import cn.soilove.cache.model.LocalCacheSpec;
+import cn.soilove.cache.properties.LocalCacheProperties;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -15,6 +35,7 @@ import java.util.function.Supplier;
  * @author: Chen GuoLin
  * @create: 2020-04-14 17:17
  **/
+@Slf4j(topic = "[starter][cache][local]")
 public class CaffeineCacheUtils {
     /**
      * 空值
@@ -22,39 +43,80 @@ public class CaffeineCacheUtils {
     private static final String NULL_VALUE = "NULL_VALUE";
 
     /**
-     * 本地缓存最大数量
+     * 固定时间缓存命名空间 - 1分钟
      */
-    private static final long LOCAL_CAFFEINE_MAXIMUM_SIZE = 1000_0000;
+    public static final String FIXED_4_MINUTES = "fixed4Minutes";
 
     /**
-     * 固定时间缓存 - 1分钟
+     * 固定时间缓存命名空间 - 1小时
      */
-    private static final Cache<Object, Object> fixed4MinutesCache = Caffeine.newBuilder()
-            .maximumSize(LOCAL_CAFFEINE_MAXIMUM_SIZE)
-            .expireAfterWrite(1, TimeUnit.MINUTES)
-            .build();
+    public static final String FIXED_4_HOURS = "fixed4Hours";
+
     /**
-     * 固定时间缓存 - 1小时
+     * 固定时间缓存命名空间 - 1天
      */
-    private static final Cache<Object, Object> fixed4HourCache = Caffeine.newBuilder()
-            .maximumSize(LOCAL_CAFFEINE_MAXIMUM_SIZE)
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .build();
+    public static final String FIXED_4_DAYS = "fixed4Days";
+
     /**
-     * 固定时间缓存 - 1天
+     * 未配置的命名空间的默认最大缓存数量
      */
-    private static final Cache<Object, Object> fixed4DayCache = Caffeine.newBuilder()
-            .maximumSize(LOCAL_CAFFEINE_MAXIMUM_SIZE)
-            .expireAfterWrite(1, TimeUnit.DAYS)
-            .build();
+    private static volatile long defaultMaximumSize = 1000_0000;
 
     /**
-     * 动态时间缓存map
+     * 命名空间配置
+     * key=缓存module
+     * value=缓存配置
+     */
+    private static volatile Map<String, LocalCacheSpec> specMap = Collections.emptyMap();
+
+    /**
+     * 未配置的命名空间使用的默认配置
+     */
+    private static final LocalCacheSpec DEFAULT_SPEC = new LocalCacheSpec();
+
+    /**
+     * 按内存淘汰的命名空间的总内存预算，为空时不限制 - 单位:字节
+     */
+    private static volatile Long maximumBytes;
+
+    /**
+     * 默认缓存项大小估算
+     */
+    private static volatile CacheObjectSizer defaultSizer = new DefaultCacheObjectSizer();
+
+    /**
+     * 按内存淘汰的命名空间
+     * key=缓存module
+     * value=命名空间配置的内存预算
+     */
+    private static final Map<String, Long> memoryBudgetMap = new ConcurrentHashMap<>();
+
+    /**
+     * 动态时间缓存map，首次使用时创建
      * key=缓存module
      * value=Caffeine.newBuilder()
      */
     private static final Map<String, Cache<Object, Object>> cacheMap = new ConcurrentHashMap<>();
 
+    /**
+     * 使用调用方过期时间的命名空间
+     * key=缓存module
+     * value=创建时的过期时间
+     */
+    private static final Map<String, Long> expireMap = new ConcurrentHashMap<>();
+
+    /**
+     * 已告警过期时间不一致的命名空间，每个命名空间仅告警一次
+     */
+    private static final Set<String> warnedExpireSet = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 加载中的缓存map，相同缓存key并发未命中时只执行一次加载
+     * key=缓存对象+缓存key
+     * value=加载结果，加载期间key被删除时标记失效，加载结果不再写入缓存
+     */
+    private static final Map<LoadingKey, LoadingFuture> loadingMap = new ConcurrentHashMap<>();
+
 
     /**
      * 获取缓存、无则设值 - 1分钟
@@ -64,7 +126,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Minutes(String key,Supplier<R> supplier){
-        return getR4Set(fixed4MinutesCache,key,supplier);
+        return get(FIXED_4_MINUTES,key,TimeUnit.MINUTES.toSeconds(1),supplier);
     }
 
     /**
@@ -74,7 +136,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Minutes(String key){
-        return getR(key, fixed4MinutesCache);
+        return get(FIXED_4_MINUTES,key);
     }
 
     /**
@@ -83,7 +145,7 @@ public class CaffeineCacheUtils {
      * @param obj
      */
     public static void setFixed4Minutes(String key, Object obj) {
-        fixed4MinutesCache.put(key,obj);
+        set(FIXED_4_MINUTES,key,TimeUnit.MINUTES.toSeconds(1),obj);
     }
 
     /**
@@ -91,7 +153,7 @@ public class CaffeineCacheUtils {
      * @param key
      */
     public static void delFixed4Minutes(String key){
-        fixed4MinutesCache.invalidate(key);
+        del(FIXED_4_MINUTES,key);
     }
 
 
@@ -103,7 +165,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Hours(String key, Supplier<R> supplier) {
-        return getR4Set(fixed4HourCache,key,supplier);
+        return get(FIXED_4_HOURS,key,TimeUnit.HOURS.toSeconds(1),supplier);
     }
 
     /**
@@ -113,7 +175,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Hours(String key) {
-        return getR(key,fixed4HourCache);
+        return get(FIXED_4_HOURS,key);
     }
 
     /**
@@ -122,7 +184,7 @@ public class CaffeineCacheUtils {
      * @param obj
      */
     public static void setFixed4Hours(String key, Object obj) {
-        fixed4HourCache.put(key,obj);
+        set(FIXED_4_HOURS,key,TimeUnit.HOURS.toSeconds(1),obj);
     }
 
     /**
@@ -130,7 +192,7 @@ public class CaffeineCacheUtils {
      * @param key
      */
     public static void delFixed4Hours(String key) {
-        fixed4HourCache.invalidate(key);
+        del(FIXED_4_HOURS,key);
     }
 
     /**
@@ -141,7 +203,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Days(String key, Supplier<R> supplier) {
-        return getR4Set(fixed4DayCache,key,supplier);
+        return get(FIXED_4_DAYS,key,TimeUnit.DAYS.toSeconds(1),supplier);
     }
 
     /**
@@ -151,7 +213,7 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R getFixed4Days(String key) {
-        return getR(key,fixed4DayCache);
+        return get(FIXED_4_DAYS,key);
     }
 
     /**
@@ -160,7 +222,7 @@ public class CaffeineCacheUtils {
      * @param obj
      */
     public static void setFixed4Days(String key, Object obj) {
-        fixed4DayCache.put(key,obj);
+        set(FIXED_4_DAYS,key,TimeUnit.DAYS.toSeconds(1),obj);
     }
 
     /**
@@ -168,7 +230,7 @@ public class CaffeineCacheUtils {
      * @param key
      */
     public static void delFixed4Days(String key) {
-        fixed4DayCache.invalidate(key);
+        del(FIXED_4_DAYS,key);
     }
 
     /**
@@ -181,10 +243,25 @@ public class CaffeineCacheUtils {
      * @return
      */
     public static <R> R get(String module,String key, long expireSecond, Supplier<R> supplier){
+        return get(module,key,expireSecond,-1,supplier);
+    }
+
+    /**
+     * 获取缓存、无则设值 - 动态缓存、模块，指定空值缓存时间
+     * 命名空间开启variable-expiry时过期时间按缓存项生效，否则以命名空间创建时的过期时间为准
+     * @param module
+     * @param key
+     * @param expireSecond
+     * @param nullExpireSecond 空值缓存时间，小于0时使用命名空间配置的null-value-expire
+     * @param supplier
+     * @param <R>
+     * @return
+     */
+    public static <R> R get(String module,String key, long expireSecond, long nullExpireSecond, Supplier<R> supplier){
         // 获取缓存
         Cache<Object, Object> caffeineCache = loadCaffeine(module,expireSecond);
 
-        return getR4Set(caffeineCache,key,supplier);
+        return getR4Set(caffeineCache,key,expireSecond,nullExpireSecond(module,expireSecond,nullExpireSecond),supplier);
     }
 
     /**
@@ -209,31 +286,221 @@ public class CaffeineCacheUtils {
     public static void set(String module,String key, long expireSecond, Object obj) {
         // 获取缓存
         Cache<Object, Object> caffeineCache = loadCaffeine(module,expireSecond);
-        caffeineCache.put(key,obj);
+        put(caffeineCache,key,obj,expireSecond,nullExpireSecond(module,expireSecond,-1));
+    }
+
+    /**
+     * 批量获取缓存、无则批量加载 - 动态缓存、模块
+     * 一次读取全部key，未命中的key合并为一次加载，加载结果中不存在的key按空值缓存
+     * @param module
+     * @param keys
+     * @param expireSecond
+     * @param batchLoader 参数为未命中的key，返回 key -> 值
+     * @param <R>
+     * @return 按keys顺序的 key -> 值，不包含空值
+     */
+    public static <R> Map<String, R> getAll(String module, Collection<String> keys, long expireSecond, Function<Set<String>, Map<String, R>> batchLoader){
+        return getAll(module, keys, expireSecond, -1, batchLoader);
+    }
+
+    /**
+     * 批量获取缓存、无则批量加载 - 动态缓存、模块，指定空值缓存时间
+     * @param module
+     * @param keys
+     * @param expireSecond
+     * @param nullExpireSecond 空值缓存时间，小于0时使用命名空间配置的null-value-expire
+     * @param batchLoader 参数为未命中的key，返回 key -> 值
+     * @param <R>
+     * @return 按keys顺序的 key -> 值，不包含空值
+     */
+    public static <R> Map<String, R> getAll(String module, Collection<String> keys, long expireSecond, long nullExpireSecond, Function<Set<String>, Map<String, R>> batchLoader){
+        Map<String, R> result = new LinkedHashMap<>();
+        if(keys == null || keys.isEmpty()){
+            return result;
+        }
+        Cache<Object, Object> caffeineCache = loadCaffeine(module, expireSecond);
+        long nullSeconds = nullExpireSecond(module, expireSecond, nullExpireSecond);
+
+        // 一次读取全部缓存
+        Map<Object, Object> present = caffeineCache.getAllPresent(keys);
+        Map<String, Object> values = new HashMap<>(present.size() * 4 / 3 + 1);
+        present.forEach((key, obj) -> values.put((String) key, obj));
+
+        // 登记未命中key的加载任务，已有线程在加载的key等待其结果
+        Map<String, LoadingFuture> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> waiting = new HashMap<>();
+        for(String key : keys){
+            if(values.containsKey(key) || owned.containsKey(key) || waiting.containsKey(key)){
+                continue;
+            }
+            LoadingFuture future = new LoadingFuture();
+            CompletableFuture<Object> loading = loadingMap.putIfAbsent(new LoadingKey(caffeineCache, key), future);
+            if(loading != null){
+                waiting.put(key, loading);
+            } else {
+                owned.put(key, future);
+            }
+        }
+
+        if(!owned.isEmpty()){
+            try {
+                // 再次读取缓存，防止登记前其他线程已加载完成，不计入统计
+                Set<String> missKeys = new LinkedHashSet<>();
+                for(Map.Entry<String, LoadingFuture> entry : owned.entrySet()){
+                    Object obj = caffeineCache.policy().getIfPresentQuietly(entry.getKey());
+                    if(obj != null){
+                        values.put(entry.getKey(), obj);
+                        entry.getValue().complete(obj);
+                    } else {
+                        missKeys.add(entry.getKey());
+                    }
+                }
+                if(!missKeys.isEmpty()){
+                    // DB操作，仅一次
+                    Map<String, R> loaded = batchLoader.apply(Collections.unmodifiableSet(missKeys));
+                    for(String key : missKeys){
+                        R value = loaded == null ? null : loaded.get(key);
+                        // 数据为空的时候，设置空值缓存
+                        Object obj = value != null ? value : NULL_VALUE;
+                        LoadingFuture future = owned.get(key);
+                        putLoaded(caffeineCache, key, obj, expireSecond, nullSeconds, future);
+                        values.put(key, obj);
+                        future.complete(obj);
+                    }
+                }
+            } catch (Throwable e) {
+                // 异常不缓存，直接通知所有等待线程
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach((key, future) -> loadingMap.remove(new LoadingKey(caffeineCache, key), future));
+            }
+        }
+        waiting.forEach((key, loading) -> values.put(key, joinLoading(loading)));
+
+        for(String key : keys){
+            R value = parseR(values.get(key));
+            if(value != null){
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量缓存设值 - 动态缓存、模块
+     * @param module
+     * @param map key -> 值，值为空时按空值缓存
+     * @param expireSecond
+     */
+    public static void putAll(String module, Map<String, ?> map, long expireSecond) {
+        if(map == null || map.isEmpty()){
+            return;
+        }
+        Cache<Object, Object> caffeineCache = loadCaffeine(module,expireSecond);
+        long nullSeconds = nullExpireSecond(module, expireSecond, -1);
+        map.forEach((key, obj) -> put(caffeineCache, key, obj != null ? obj : NULL_VALUE, expireSecond, nullSeconds));
     }
 
     /**
      * 删除缓存 - 动态缓存、模块
+     * 正在加载该key的结果不会写入缓存，调用方仍会拿到加载结果
      * @param module
      * @param key
      */
     public static void del(String module,String key){
         Cache<Object, Object> caffeineCache = cacheMap.get(module);
         if(caffeineCache != null){
+            LoadingFuture loading = loadingMap.get(new LoadingKey(caffeineCache, key));
+            if(loading != null){
+                loading.invalidated = true;
+            }
             caffeineCache.invalidate(key);
         }
     }
 
     /**
      * 删除缓存模块 - 动态缓存、模块
+     * 清空命名空间的全部缓存，保留缓存实例，调用方已持有的实例仍然有效
+     * 正在加载的结果不会写入缓存
      * @param module
      */
     public static void del(String module){
-        cacheMap.remove(module);
+        Cache<Object, Object> caffeineCache = cacheMap.get(module);
+        if(caffeineCache != null){
+            loadingMap.forEach((loadingKey, loading) -> {
+                if(loadingKey.cache == caffeineCache){
+                    loading.invalidated = true;
+                }
+            });
+            caffeineCache.invalidateAll();
+        }
     }
 
     /**
-     * 加载Caffeine对象
+     * 设置命名空间配置，已创建的命名空间不受影响
+     * @param properties 本地缓存配置
+     */
+    public static void configure(LocalCacheProperties properties){
+        Map<String, LocalCacheSpec> map = new HashMap<>();
+        if(properties.getNamespaces() != null){
+            properties.getNamespaces().forEach((module, spec) -> {
+                int limits = (spec.getMaximumSize() != null ? 1 : 0) + (spec.getMaximumWeight() != null ? 1 : 0) + (spec.getMaximumBytes() != null ? 1 : 0);
+                if(limits > 1){
+                    throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(),"[starter][cache]本地缓存maximumSize、maximumWeight、maximumBytes只能配置一个!namespace:" + module);
+                }
+                if(spec.getMaximumWeight() != null && StringUtils.isEmpty(spec.getWeigher())){
+                    throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(),"[starter][cache]本地缓存配置maximumWeight时需同时配置weigher!namespace:" + module);
+                }
+                if(spec.isVariableExpiry() && (spec.getExpireAfterWrite() != null || spec.getExpireAfterAccess() != null)){
+                    throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(),"[starter][cache]本地缓存开启variableExpiry时不能配置expireAfterWrite、expireAfterAccess!namespace:" + module);
+                }
+                if(!StringUtils.isEmpty(spec.getSizer())){
+                    newInstance(module, spec.getSizer(), CacheObjectSizer.class);
+                }
+                map.put(module, spec);
+            });
+        }
+        defaultSizer = StringUtils.isEmpty(properties.getSizer())
+                ? new DefaultCacheObjectSizer()
+                : newInstance("*", properties.getSizer(), CacheObjectSizer.class);
+        defaultMaximumSize = properties.getDefaultMaximumSize();
+        maximumBytes = properties.getMaximumBytes();
+        specMap = map;
+    }
+
+    /**
+     * 获取命名空间的统计信息，命名空间未创建或未开启recordStats时返回null
+     * @param module
+     * @return
+     */
+    public static CacheStats stats(String module){
+        LocalCacheSpec spec = specMap.get(module);
+        Cache<Object, Object> caffeineCache = cacheMap.get(module);
+        if(caffeineCache == null || spec == null || !spec.isRecordStats()){
+            return null;
+        }
+        return caffeineCache.stats();
+    }
+
+    /**
+     * 获取按内存淘汰的命名空间当前估算的内存占用，命名空间未创建或未按内存淘汰时返回-1
+     * @param module
+     * @return 字节数
+     */
+    public static long memoryUsage(String module){
+        Cache<Object, Object> caffeineCache = cacheMap.get(module);
+        if(caffeineCache == null || !memoryBudgetMap.containsKey(module)){
+            return -1;
+        }
+        Optional<Policy.Eviction<Object, Object>> eviction = caffeineCache.policy().eviction();
+        return eviction.isPresent() ? eviction.get().weightedSize().orElse(-1) : -1;
+    }
+
+    /**
+     * 加载Caffeine对象，并发首次调用时仅创建一个实例
+     * 使用调用方过期时间的命名空间以首次创建时的过期时间为准，传入不同的过期时间时告警一次，
+     * 需要不同过期时间时配置expireAfterWrite或variableExpiry
      * @param module
      * @param expireSecond
      * @return
@@ -241,38 +508,230 @@ public class CaffeineCacheUtils {
     private static Cache<Object, Object> loadCaffeine(String module, long expireSecond){
         Cache<Object, Object> caffeineCache = cacheMap.get(module);
         if(caffeineCache == null){
-            caffeineCache = Caffeine.newBuilder()
-                    .maximumSize(LOCAL_CAFFEINE_MAXIMUM_SIZE)
-                    .expireAfterWrite(expireSecond, TimeUnit.SECONDS)
-                    .build();
-            cacheMap.put(module,caffeineCache);
+            boolean[] created = {false};
+            caffeineCache = cacheMap.computeIfAbsent(module, k -> {
+                created[0] = true;
+                return buildCaffeine(k, expireSecond);
+            });
+            if(created[0] && memoryBudgetMap.containsKey(module)){
+                rebalanceMemory();
+            }
+        }
+        Long createdExpireSecond = expireMap.get(module);
+        if(createdExpireSecond != null && createdExpireSecond != expireSecond && warnedExpireSet.add(module)){
+            log.warn("[starter][cache][local]本地缓存命名空间已按" + createdExpireSecond + "秒过期创建，忽略传入的过期时间，需要不同过期时间请配置expire-after-write或variable-expiry!namespace:" + module + "，expireSecond:" + expireSecond);
         }
         return caffeineCache;
     }
 
-    private static <R> R getR4Set(Cache<Object, Object> caffeineCache, String key, Supplier<R> supplier){
+    /**
+     * 按命名空间配置创建Caffeine对象，未配置过期时间时使用调用方传入的过期时间
+     * @param module
+     * @param expireSecond
+     * @return
+     */
+    private static Cache<Object, Object> buildCaffeine(String module, long expireSecond){
+        LocalCacheSpec spec = specMap.getOrDefault(module, DEFAULT_SPEC);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if(spec.getInitialCapacity() != null){
+            builder.initialCapacity(spec.getInitialCapacity());
+        }
+        Long memoryBudget = spec.getMaximumBytes() != null ? spec.getMaximumBytes()
+                : spec.getMaximumSize() == null && spec.getMaximumWeight() == null ? maximumBytes : null;
+        if(memoryBudget != null){
+            // 按估算的内存大小淘汰，存在总内存预算时按比例分配
+            CacheObjectSizer sizer = StringUtils.isEmpty(spec.getSizer()) ? defaultSizer : newInstance(module, spec.getSizer(), CacheObjectSizer.class);
+            builder.maximumWeight(memoryBudget)
+                    .weigher((key, value) -> (int) Math.min(Integer.MAX_VALUE, sizer.sizeOf(key, value)));
+            memoryBudgetMap.put(module, memoryBudget);
+        } else if(spec.getMaximumWeight() != null){
+            // 配置的Weigher实现以类名创建，缓存key、value均为Object
+            @SuppressWarnings("unchecked")
+            Weigher<Object, Object> weigher = newInstance(module, spec.getWeigher(), Weigher.class);
+            builder.maximumWeight(spec.getMaximumWeight()).weigher(weigher);
+        } else {
+            builder.maximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : defaultMaximumSize);
+        }
+        if(spec.isVariableExpiry()){
+            // 按缓存项过期，写入时指定过期时间
+            long nullExpireSecond = spec.getNullValueExpire() != null ? spec.getNullValueExpire() : expireSecond;
+            builder.expireAfter(new VariableExpiry(expireSecond, nullExpireSecond));
+        } else if(spec.getExpireAfterWrite() != null){
+            builder.expireAfterWrite(spec.getExpireAfterWrite(), TimeUnit.SECONDS);
+        } else if(spec.getExpireAfterAccess() == null){
+            builder.expireAfterWrite(expireSecond, TimeUnit.SECONDS);
+            expireMap.put(module, expireSecond);
+        }
+        if(spec.getExpireAfterAccess() != null){
+            builder.expireAfterAccess(spec.getExpireAfterAccess(), TimeUnit.SECONDS);
+        }
+        if(spec.isRecordStats()){
+            builder.recordStats();
+        }
+        // 记录容量淘汰次数
+        String evictionMetric = CacheMetricsUtils.LOCAL_EVICTION_SIZE + module;
+        builder.removalListener((key, value, cause) -> {
+            if(cause == RemovalCause.SIZE){
+                CacheMetricsUtils.incr(evictionMetric);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * 总内存预算小于各命名空间内存预算之和时，按比例缩小各命名空间的最大内存
+     * 仅按内存淘汰的命名空间计入总预算，按内存淘汰的命名空间集合只在创建时变化，因此只在创建时重新分配
+     */
+    private static synchronized void rebalanceMemory(){
+        Long total = maximumBytes;
+        long requested = 0;
+        for(Long budget : memoryBudgetMap.values()){
+            requested += budget;
+        }
+        double ratio = total == null || requested <= total ? 1 : (double) total / requested;
+        memoryBudgetMap.forEach((module, budget) -> {
+            Cache<Object, Object> caffeineCache = cacheMap.get(module);
+            if(caffeineCache != null){
+                caffeineCache.policy().eviction().ifPresent(eviction -> eviction.setMaximum((long) (budget * ratio)));
+            }
+        });
+    }
+
+    /**
+     * 按类名创建配置的扩展实现
+     * @param module
+     * @param className
+     * @param type
+     * @return
+     */
+    private static <T> T newInstance(String module, String className, Class<T> type){
+        try {
+            Class<?> clazz = Class.forName(className.trim());
+            if(!type.isAssignableFrom(clazz)){
+                throw new IllegalArgumentException(className + " is not " + type.getName());
+            }
+            return type.cast(clazz.getDeclaredConstructor().newInstance());
+        } catch (Exception e) {
+            throw new CacheStarterException(CacheStarterCode.CONFIG_ERROR.getCode(),"[starter][cache]本地缓存" + type.getSimpleName() + "创建失败!namespace:" + module + "，class:" + className);
+        }
+    }
+
+    /**
+     * 写入缓存，按缓存项过期的命名空间使用指定的过期时间
+     * @param caffeineCache
+     * @param key
+     * @param obj
+     * @param expireSecond
+     * @param nullExpireSecond
+     */
+    private static void put(Cache<Object, Object> caffeineCache, Object key, Object obj, long expireSecond, long nullExpireSecond){
+        Optional<Policy.VarExpiration<Object, Object>> varExpiration = caffeineCache.policy().expireVariably();
+        if(varExpiration.isPresent()){
+            varExpiration.get().put(key, obj, NULL_VALUE.equals(obj) ? nullExpireSecond : expireSecond, TimeUnit.SECONDS);
+        } else {
+            caffeineCache.put(key, obj);
+        }
+    }
+
+    /**
+     * 空值缓存时间：调用方指定 > 命名空间配置 > 缓存时间
+     * @param module
+     * @param expireSecond
+     * @param nullExpireSecond
+     * @return
+     */
+    private static long nullExpireSecond(String module, long expireSecond, long nullExpireSecond){
+        if(nullExpireSecond >= 0){
+            return nullExpireSecond;
+        }
+        LocalCacheSpec spec = specMap.get(module);
+        return spec != null && spec.getNullValueExpire() != null ? spec.getNullValueExpire() : expireSecond;
+    }
+
+    private static <R> R getR4Set(Cache<Object, Object> caffeineCache, String key, long expireSecond, long nullExpireSecond, Supplier<R> supplier){
         // 读取缓存
         Object obj = caffeineCache.getIfPresent(key);
         if (obj != null) {
-            // 空缓存判断
-            if(Objects.equals(obj,NULL_VALUE)){
-                return null;
+            return parseR(obj);
+        }
+
+        // 登记加载任务，已有线程在加载时等待其结果
+        LoadingKey loadingKey = new LoadingKey(caffeineCache, key);
+        LoadingFuture future = new LoadingFuture();
+        CompletableFuture<Object> loading = loadingMap.putIfAbsent(loadingKey, future);
+        if (loading != null) {
+            return parseR(joinLoading(loading));
+        }
+
+        try {
+            // 再次读取缓存，防止登记前其他线程已加载完成，不计入统计
+            obj = caffeineCache.policy().getIfPresentQuietly(key);
+            if (obj == null) {
+                // DB操作
+                R result = supplier.get();
+                // 数据为空的时候，设置空值缓存
+                obj = result != null ? result : NULL_VALUE;
+                // 设置本地缓存
+                putLoaded(caffeineCache, key, obj, expireSecond, nullExpireSecond, future);
             }
-            return (R) obj;
+            future.complete(obj);
+            return parseR(obj);
+        } catch (Throwable e) {
+            // 异常不缓存，直接通知所有等待线程
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(loadingKey, future);
         }
+    }
 
-        // DB操作
-        R result = supplier.get();
-        if (result != null) {
-            // 设置本地缓存
-            caffeineCache.put(key, result);
-        } else {
-            // 数据为空的时候，设置空值缓存
-            caffeineCache.put(key, NULL_VALUE);
+    /**
+     * 写入加载结果，加载期间key已被删除时撤销写入，避免删除前读取的旧值留在本地缓存
+     * 删除方先标记失效再删除缓存，这里先写入再检查标记，两者交错时至少一方会移除该值
+     * @param caffeineCache
+     * @param key
+     * @param obj
+     * @param expireSecond
+     * @param nullExpireSecond
+     * @param future
+     */
+    private static void putLoaded(Cache<Object, Object> caffeineCache, String key, Object obj, long expireSecond, long nullExpireSecond, LoadingFuture future){
+        put(caffeineCache, key, obj, expireSecond, nullExpireSecond);
+        if(future.invalidated){
+            caffeineCache.asMap().remove(key, obj);
         }
-        return result;
     }
 
+    /**
+     * 等待其他线程的加载结果
+     * @param loading
+     * @return
+     */
+    private static Object joinLoading(CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked") // 本地缓存值为Object，类型由调用方写入和读取时保持一致
+    private static <R> R parseR(Object obj) {
+        // 空缓存判断
+        if(Objects.equals(obj,NULL_VALUE)){
+            return null;
+        }
+        return (R) obj;
+    }
+
+    @SuppressWarnings("unchecked") // 本地缓存值为Object，类型由调用方写入和读取时保持一致
     private static <R> R getR(String key, Cache<Object, Object> caffeineCache) {
         if(caffeineCache != null){
             Object obj = caffeineCache.getIfPresent(key);
@@ -288,4 +747,71 @@ public class CaffeineCacheUtils {
         return null;
     }
 
+    /**
+     * 按缓存项过期，未指定过期时间的写入使用命名空间创建时的过期时间，读取不影响过期时间
+     */
+    private static final class VariableExpiry implements Expiry<Object, Object> {
+        private final long expireNanos;
+        private final long nullExpireNanos;
+
+        private VariableExpiry(long expireSecond, long nullExpireSecond) {
+            this.expireNanos = TimeUnit.SECONDS.toNanos(expireSecond);
+            this.nullExpireNanos = TimeUnit.SECONDS.toNanos(nullExpireSecond);
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            return NULL_VALUE.equals(value) ? nullExpireNanos : expireNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * 加载任务结果
+     */
+    private static final class LoadingFuture extends CompletableFuture<Object> {
+        /**
+         * 加载期间key已被删除
+         */
+        private volatile boolean invalidated;
+    }
+
+    /**
+     * 加载任务key
+     */
+    private static final class LoadingKey {
+        private final Cache<Object, Object> cache;
+        private final Object key;
+
+        private LoadingKey(Cache<Object, Object> cache, Object key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LoadingKey)) {
+                return false;
+            }
+            LoadingKey that = (LoadingKey) o;
+            return cache == that.cache && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(cache) + key.hashCode();
+        }
+    }
 }
@@ -0,0 +1,207 @@
+package cn.soilove.cache.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 默认对象大小估算：常见类型按64位jvm(压缩指针)的对象布局估算，
+ * 其他对象按字段反射遍历估算，同一对象只计算一次，遍历深度和对象数量有上限，超出部分按引用计算
+ **/
+public class DefaultCacheObjectSizer implements CacheObjectSizer {
+
+    /**
+     * 对象头
+     */
+    private static final int OBJECT_HEADER = 16;
+
+    /**
+     * 引用
+     */
+    private static final int REFERENCE = 4;
+
+    /**
+     * 集合元素超过此数量时抽样估算
+     */
+    private static final int SAMPLE_SIZE = 64;
+
+    /**
+     * 最大递归深度，超过后按引用计算
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * 单个缓存项最多遍历的对象数量，超过后按引用计算
+     */
+    private static final int MAX_OBJECTS = 1024;
+
+    /**
+     * 对象字段布局
+     * key=对象类型
+     * value=实例字段，无法反射访问时为空
+     */
+    private static final Map<Class<?>, ClassLayout> layoutMap = new ConcurrentHashMap<>();
+
+    @Override
+    public long sizeOf(Object key, Object value) {
+        // 缓存项本身的节点开销
+        Walk walk = new Walk();
+        return 48 + sizeOf(key, 0, walk) + sizeOf(value, 0, walk);
+    }
+
+    private long sizeOf(Object obj, int depth, Walk walk) {
+        if (obj == null) {
+            return 0;
+        }
+        if (depth > MAX_DEPTH || walk.remaining <= 0 || !walk.visited.add(obj)) {
+            // 超出遍历范围或已计算过的共享对象
+            return REFERENCE;
+        }
+        walk.remaining--;
+        if (obj instanceof String) {
+            return 40 + 2L * ((String) obj).length();
+        }
+        if (obj instanceof byte[]) {
+            return OBJECT_HEADER + ((byte[]) obj).length;
+        }
+        if (obj instanceof char[]) {
+            return OBJECT_HEADER + 2L * ((char[]) obj).length;
+        }
+        if (obj instanceof Long || obj instanceof Double) {
+            return 24;
+        }
+        if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character) {
+            return obj instanceof BigDecimal || obj instanceof BigInteger ? 64 : 16;
+        }
+        if (obj instanceof Enum) {
+            // 枚举为共享实例
+            return 0;
+        }
+        if (obj instanceof Date || obj instanceof Temporal) {
+            return 32;
+        }
+        if (obj instanceof Collection) {
+            Collection<?> collection = (Collection<?>) obj;
+            return 40 + 32L * collection.size() + sampleSize(collection.iterator(), collection.size(), depth, walk);
+        }
+        if (obj instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) obj;
+            return 48 + 48L * map.size()
+                    + sampleSize(map.keySet().iterator(), map.size(), depth, walk)
+                    + sampleSize(map.values().iterator(), map.size(), depth, walk);
+        }
+        Class<?> type = obj.getClass();
+        if (type.isArray()) {
+            return arraySize(obj, type.getComponentType(), depth, walk);
+        }
+        ClassLayout layout = layoutMap.computeIfAbsent(type, ClassLayout::new);
+        long total = layout.shallowSize;
+        for (Field field : layout.references) {
+            try {
+                total += sizeOf(field.get(obj), depth + 1, walk);
+            } catch (IllegalAccessException e) {
+                // 按引用计算，已包含在对象自身大小中
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 元素过多时按前SAMPLE_SIZE个元素的平均大小估算
+     */
+    private long sampleSize(Iterator<?> iterator, int size, int depth, Walk walk) {
+        long total = 0;
+        int sampled = 0;
+        while (iterator.hasNext() && sampled < SAMPLE_SIZE) {
+            total += sizeOf(iterator.next(), depth + 1, walk);
+            sampled++;
+        }
+        return sampled == 0 || sampled == size ? total : total * size / sampled;
+    }
+
+    private long arraySize(Object array, Class<?> componentType, int depth, Walk walk) {
+        int length = Array.getLength(array);
+        if (!componentType.isPrimitive()) {
+            long total = OBJECT_HEADER + (long) REFERENCE * length;
+            Object[] objects = (Object[]) array;
+            int sampled = Math.min(length, SAMPLE_SIZE);
+            long sampleTotal = 0;
+            for (int i = 0; i < sampled; i++) {
+                sampleTotal += sizeOf(objects[i], depth + 1, walk);
+            }
+            return total + (sampled == 0 ? 0 : sampleTotal * length / sampled);
+        }
+        return OBJECT_HEADER + (long) primitiveSize(componentType) * length;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        return type == long.class || type == double.class ? 8
+                : type == int.class || type == float.class ? 4
+                : type == short.class || type == char.class ? 2 : 1;
+    }
+
+    /**
+     * 单个缓存项的遍历状态
+     */
+    private static final class Walk {
+        /**
+         * 已计算的对象，按引用判断
+         */
+        private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * 剩余可遍历的对象数量
+         */
+        private int remaining = MAX_OBJECTS;
+    }
+
+    /**
+     * 对象字段布局：对象自身大小(对象头+字段，按8字节对齐)和需要遍历的引用字段
+     */
+    private static final class ClassLayout {
+        private final long shallowSize;
+        private final Field[] references;
+
+        private ClassLayout(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        size += primitiveSize(field.getType());
+                    } else {
+                        size += REFERENCE;
+                        fields.add(field);
+                    }
+                }
+            }
+            Field[] references = fields.toArray(new Field[0]);
+            try {
+                for (Field field : references) {
+                    field.setAccessible(true);
+                }
+            } catch (RuntimeException e) {
+                // 无法反射访问(如jdk模块内部类)时只计算对象自身大小
+                references = new Field[0];
+            }
+            this.shallowSize = (size + 7) / 8 * 8;
+            this.references = references;
+        }
+    }
+}
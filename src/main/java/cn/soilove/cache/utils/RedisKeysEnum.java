@@ -37,6 +37,12 @@ public enum RedisKeysEnum {
      */
     REDIS_BF_CONFIG("bf:config:%s"),
 
+    /**
+     * easyCache 防击穿互斥锁
+     * [0] = cache key
+     */
+    EASY_CACHE_MUTEX("cache:mutex:%s"),
+
     ;
 
     private String key;
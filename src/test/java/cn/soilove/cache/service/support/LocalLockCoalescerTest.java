@@ -0,0 +1,225 @@
+package cn.soilove.cache.service.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分布式锁本地合并测试，redis锁以内存模拟
+ **/
+public class LocalLockCoalescerTest {
+
+    private static final String LOCK_KEY = "LOCK:coalesce-test";
+
+    private final AtomicReference<Thread> workerB = new AtomicReference<>();
+
+    private final AtomicReference<Thread> workerC = new AtomicReference<>();
+
+    private final ExecutorService threadA = Executors.newSingleThreadExecutor();
+
+    private final ExecutorService threadB = Executors.newSingleThreadExecutor(worker(workerB));
+
+    private final ExecutorService threadC = Executors.newSingleThreadExecutor(worker(workerC));
+
+    @AfterEach
+    public void tearDown() {
+        threadA.shutdownNow();
+        threadB.shutdownNow();
+        threadC.shutdownNow();
+    }
+
+    @Test
+    public void handoverToTimedOutWaiterReleasesRedisLock() throws Exception {
+        LocalLockCoalescer coalescer = new LocalLockCoalescer(true, 16);
+        FakeRedisLock redisLock = new FakeRedisLock();
+        assertTrue(threadA.submit(() -> coalescer.lock(LOCK_KEY, 0, redisLock)).get());
+
+        // B排队等待，A决定移交时B恰好等待超时离开
+        Future<Boolean> waiter = threadB.submit(() -> coalescer.lock(LOCK_KEY, 200, redisLock));
+        awaitWaiting(workerB);
+        redisLock.onHandOver = () -> {
+            try {
+                assertFalse(waiter.get(5, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        assertTrue(threadA.submit(() -> coalescer.unlock(LOCK_KEY, redisLock)).get());
+
+        // 移交无人接手，redis锁被释放，其他节点可以加锁
+        assertEquals(1, redisLock.handOvers.get());
+        assertEquals(1, redisLock.releases.get());
+        assertNull(redisLock.owner.get());
+        assertTrue(redisLock.tryAcquire("other-node"));
+    }
+
+    @Test
+    public void maxHandoverReleasesRedisLockToOtherNodes() throws Exception {
+        LocalLockCoalescer coalescer = new LocalLockCoalescer(true, 1);
+        FakeRedisLock redisLock = new FakeRedisLock();
+        assertTrue(threadA.submit(() -> coalescer.lock(LOCK_KEY, 0, redisLock)).get());
+
+        Future<Boolean> lockB = threadB.submit(() -> coalescer.lock(LOCK_KEY, 5000, redisLock));
+        awaitWaiting(workerB);
+        assertTrue(threadA.submit(() -> coalescer.unlock(LOCK_KEY, redisLock)).get());
+        // 第一次释放移交给B，B续期后使用，不访问redis加锁
+        assertTrue(lockB.get(5, TimeUnit.SECONDS));
+        assertEquals(1, redisLock.handOvers.get());
+        assertEquals(1, redisLock.renews.get());
+        assertEquals(0, redisLock.releases.get());
+
+        // 达到移交上限，即使C在排队也释放redis锁，C重新竞争
+        Future<Boolean> lockC = threadC.submit(() -> coalescer.lock(LOCK_KEY, 5000, redisLock));
+        awaitWaiting(workerC);
+        redisLock.onRelease = () -> assertTrue(redisLock.tryAcquire("other-node"));
+        assertTrue(threadB.submit(() -> coalescer.unlock(LOCK_KEY, redisLock)).get());
+        assertEquals(1, redisLock.handOvers.get());
+        assertEquals(1, redisLock.releases.get());
+
+        // 其他节点持有期间C等待，其他节点释放后C加锁成功
+        redisLock.onRelease = null;
+        Thread.sleep(100);
+        assertFalse(lockC.isDone());
+        redisLock.owner.set(null);
+        assertTrue(lockC.get(5, TimeUnit.SECONDS));
+        assertEquals(2, redisLock.acquires.get());
+    }
+
+    @Test
+    public void expiredHolderIsReclaimedWithoutUnlock() throws Exception {
+        LocalLockCoalescer coalescer = new LocalLockCoalescer(true, 16);
+        FakeRedisLock redisLock = new FakeRedisLock();
+        redisLock.leaseMillis = 300;
+        // A仅依赖超时时间，不解锁
+        assertTrue(threadA.submit(() -> coalescer.lock(LOCK_KEY, 0, redisLock)).get());
+        assertFalse(threadB.submit(() -> coalescer.lock(LOCK_KEY, 0, redisLock)).get());
+
+        // 租约过期后B无需等待到超时即可加锁
+        long start = System.currentTimeMillis();
+        assertTrue(threadB.submit(() -> coalescer.lock(LOCK_KEY, 5000, redisLock)).get(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(2, redisLock.acquires.get());
+
+        // B同样不解锁，租约过期后不等待的加锁也能成功
+        Thread.sleep(400);
+        assertTrue(threadC.submit(() -> coalescer.lock(LOCK_KEY, 0, redisLock)).get());
+        assertEquals(3, redisLock.acquires.get());
+    }
+
+    private static ThreadFactory worker(AtomicReference<Thread> holder) {
+        return runnable -> {
+            Thread thread = new Thread(runnable);
+            holder.set(thread);
+            return thread;
+        };
+    }
+
+    /**
+     * 等待线程在本地锁上排队
+     */
+    private static void awaitWaiting(AtomicReference<Thread> worker) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (worker.get() == null || worker.get().getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.currentTimeMillis() < deadline, "worker is not waiting for " + LOCK_KEY);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 内存模拟的redis锁，owner为持有节点，expireAt为锁的过期时间
+     */
+    private static final class FakeRedisLock implements LocalLockCoalescer.RedisLock {
+
+        private static final String NODE = "this-node";
+
+        private final AtomicReference<String> owner = new AtomicReference<>();
+
+        private volatile long leaseMillis = 60000;
+
+        private volatile long expireAt;
+
+        private final AtomicInteger acquires = new AtomicInteger();
+
+        private final AtomicInteger renews = new AtomicInteger();
+
+        private final AtomicInteger handOvers = new AtomicInteger();
+
+        private final AtomicInteger releases = new AtomicInteger();
+
+        private volatile Runnable onHandOver;
+
+        private volatile Runnable onRelease;
+
+        private boolean tryAcquire(String node) {
+            String current = owner.get();
+            if (current != null && System.currentTimeMillis() >= expireAt) {
+                owner.compareAndSet(current, null);
+            }
+            if (!owner.compareAndSet(null, node)) {
+                return false;
+            }
+            expireAt = System.currentTimeMillis() + leaseMillis;
+            return true;
+        }
+
+        @Override
+        public boolean acquire(long waitMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + waitMillis;
+            while (!tryAcquire(NODE)) {
+                if (System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(10);
+            }
+            acquires.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean renew() {
+            renews.incrementAndGet();
+            if (!NODE.equals(owner.get())) {
+                return false;
+            }
+            expireAt = System.currentTimeMillis() + leaseMillis;
+            return true;
+        }
+
+        @Override
+        public long leaseRemaining() {
+            return NODE.equals(owner.get()) ? Math.max(0, expireAt - System.currentTimeMillis()) : 0;
+        }
+
+        @Override
+        public void handOver() {
+            handOvers.incrementAndGet();
+            Runnable hook = onHandOver;
+            if (hook != null) {
+                hook.run();
+            }
+        }
+
+        @Override
+        public boolean release() {
+            releases.incrementAndGet();
+            boolean res = owner.compareAndSet(NODE, null);
+            Runnable hook = onRelease;
+            if (hook != null) {
+                hook.run();
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cn.soilove.cache.service.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分布式等待锁的释放通知测试，仅验证本节点唤醒，不访问redis
+ **/
+public class LockNotifierTest {
+
+    private final LockNotifier notifier = new LockNotifier("lock-notify-test:", false);
+
+    @Test
+    public void waiterIsWokenByReleaseSignal() throws Exception {
+        AtomicBoolean released = new AtomicBoolean();
+        AtomicInteger attempts = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiter = executor.submit(() -> notifier.await("lock-key", 10_000, () -> {
+                attempts.incrementAndGet();
+                return released.get();
+            }));
+            // 等待退避间隔增长到最大值(500毫秒)
+            while (attempts.get() < 8) {
+                Thread.sleep(10);
+            }
+
+            long signaledAt = System.nanoTime();
+            released.set(true);
+            notifier.signal(null, "lock-key");
+            assertTrue(waiter.get(5, TimeUnit.SECONDS));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - signaledAt);
+            // 未收到通知时至少再等待退避间隔的一半(250毫秒)才会重试
+            assertTrue(elapsed < 200, "waiter took " + elapsed + "ms after the release signal");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waiterGivesUpAfterWaitTime() throws Exception {
+        long start = System.nanoTime();
+        assertFalse(notifier.await("lock-key-timeout", 300, () -> false));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 300 && elapsed < 1000, "waited " + elapsed + "ms");
+    }
+}
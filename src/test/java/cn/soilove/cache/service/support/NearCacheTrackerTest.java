@@ -0,0 +1,84 @@
+package cn.soilove.cache.service.support;
+
+import cn.soilove.cache.utils.CaffeineCacheUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * redis服务端跟踪失效测试，需要redis 6+，通过系统属性redis.host、redis.port指定地址
+ **/
+public class NearCacheTrackerTest {
+
+    private static final String NAMESPACE = "near-tracker-test";
+
+    private static final String PREFIX = "near-tracker-test:";
+
+    private final HostAndPort host = new HostAndPort(System.getProperty("redis.host", "127.0.0.1"), Integer.getInteger("redis.port", 6379));
+
+    private NearCacheInvalidator invalidator;
+
+    @BeforeEach
+    public void setUp() {
+        assumeTrue(redisVersion() >= 6, "redis 6+ not available at " + host);
+        invalidator = new NearCacheInvalidator("near-tracker-test-channel", true);
+        invalidator.setTracker(new NearCacheTracker(() -> host, null, 2000, Collections.singletonList(PREFIX)));
+        invalidator.register(NAMESPACE);
+        invalidator.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if(invalidator != null){
+            invalidator.shutdown();
+        }
+    }
+
+    @Test
+    public void setFromAnotherClientEvictsLocalEntry() throws InterruptedException {
+        String key = PREFIX + "user:1";
+        try (Jedis writer = new Jedis(host.getHost(), host.getPort())) {
+            // 跟踪开启前的修改不会推送，重复写入直到收到失效消息
+            boolean evicted = false;
+            for (int i = 0; i < 50 && !evicted; i++) {
+                CaffeineCacheUtils.get(NAMESPACE, key, 60, () -> "local");
+                writer.set(key, "remote-" + i);
+                for (int j = 0; j < 10 && !evicted; j++) {
+                    Thread.sleep(20);
+                    evicted = CaffeineCacheUtils.get(NAMESPACE, key) == null;
+                }
+            }
+            assertTrue(evicted, "L1 entry was not evicted after SET from another client");
+
+            // 跟踪已开启后，每次写入都清理一级缓存
+            CaffeineCacheUtils.get(NAMESPACE, key, 60, () -> "local");
+            writer.set(key, "remote");
+            for (int j = 0; j < 50 && CaffeineCacheUtils.get(NAMESPACE, key) != null; j++) {
+                Thread.sleep(20);
+            }
+            assertNull(CaffeineCacheUtils.get(NAMESPACE, key));
+            writer.del(key);
+        }
+    }
+
+    private int redisVersion() {
+        try (Jedis jedis = new Jedis(host.getHost(), host.getPort(), 500)) {
+            for (String line : jedis.info("server").split("\r\n")) {
+                if (line.startsWith("redis_version:")) {
+                    return Integer.parseInt(line.substring("redis_version:".length()).split("\\.")[0]);
+                }
+            }
+            return 0;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package cn.soilove.cache.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地缓存并发未命中时的合并加载测试
+ **/
+public class CaffeineCacheUtilsTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<String> results = runConcurrently(() -> CaffeineCacheUtils.get("single-flight-get", "key", 60, () -> {
+            loads.incrementAndGet();
+            sleep(100);
+            return "value";
+        }));
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.nCopies(THREADS, "value"), results);
+        assertEquals("value", CaffeineCacheUtils.get("single-flight-get", "key"));
+    }
+
+    @Test
+    public void concurrentMissesShareLoadException() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<String> results = runConcurrently(() -> {
+            try {
+                return CaffeineCacheUtils.get("single-flight-error", "key", 60, () -> {
+                    loads.incrementAndGet();
+                    sleep(100);
+                    throw new IllegalStateException("load failed");
+                });
+            } catch (IllegalStateException e) {
+                return e.getMessage();
+            }
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.nCopies(THREADS, "load failed"), results);
+        // 异常不缓存，下次调用重新加载
+        assertNull(CaffeineCacheUtils.get("single-flight-error", "key"));
+        assertEquals("value", CaffeineCacheUtils.get("single-flight-error", "key", 60, () -> {
+            loads.incrementAndGet();
+            return "value";
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void concurrentBatchMissesLoadEachKeyOnce() throws Exception {
+        Map<String, AtomicInteger> loads = new HashMap<>();
+        for (String key : Arrays.asList("a", "b", "c", "d")) {
+            loads.put(key, new AtomicInteger());
+        }
+        AtomicInteger calls = new AtomicInteger();
+        List<Map<String, String>> results = runConcurrently(() -> {
+            // 相邻线程的key有重叠
+            int offset = calls.getAndIncrement() % 3;
+            List<String> keys = Arrays.asList("a", "b", "c", "d").subList(offset, offset + 2);
+            return CaffeineCacheUtils.getAll("single-flight-batch", keys, 60, (Set<String> missKeys) -> {
+                Map<String, String> loaded = new HashMap<>();
+                for (String key : missKeys) {
+                    loads.get(key).incrementAndGet();
+                    loaded.put(key, key.toUpperCase());
+                }
+                sleep(100);
+                return loaded;
+            });
+        });
+
+        loads.forEach((key, count) -> assertTrue(count.get() <= 1, key + " loaded " + count.get() + " times"));
+        for (Map<String, String> result : results) {
+            assertEquals(2, result.size());
+            result.forEach((key, value) -> assertEquals(key.toUpperCase(), value));
+        }
+    }
+
+    @Test
+    public void concurrentBatchMissesShareLoadException() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<String> results = runConcurrently(() -> {
+            try {
+                CaffeineCacheUtils.getAll("single-flight-batch-error", Arrays.asList("a", "b"), 60, (Set<String> missKeys) -> {
+                    loads.incrementAndGet();
+                    sleep(100);
+                    throw new IllegalStateException("load failed");
+                });
+                return "loaded";
+            } catch (IllegalStateException e) {
+                return e.getMessage();
+            }
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(Collections.nCopies(THREADS, "load failed"), results);
+        assertNull(CaffeineCacheUtils.get("single-flight-batch-error", "a"));
+        assertNull(CaffeineCacheUtils.get("single-flight-batch-error", "b"));
+    }
+
+    /**
+     * 多个线程同时开始执行
+     */
+    private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new AssertionError(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}